@@ -0,0 +1,66 @@
+///usr/bin/env java "$0" "$@" ; exit $?
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+// Summarizes the tba.* events of a recording, one row per stage,
+//
+//   java jfr/summary.java tba.jfr
+
+// The field which names the stage, per event type
+final Map<String, String> stageFields = Map.of(
+        "tba.TourLoop",    "eventType",
+        "tba.LichessCall", "endpoint",
+        "tba.Render",      "eventType",
+        "tba.Transform",   "transformer",
+        "tba.SinkAccept",  "sink");
+
+record Stage(String event, String name) {}
+
+void main(String[] args) throws Exception {
+    if (args.length != 1) {
+        IO.println("Usage: java jfr/summary.java <recording.jfr>");
+        System.exit(1);
+    }
+
+    Map<Stage, List<Long>> durations = new TreeMap<>(
+            Comparator.comparing(Stage::event).thenComparing(Stage::name));
+    Map<Stage, Integer> maxQueueDepth = new HashMap<>();
+    Map<Stage, Integer> failures = new HashMap<>();
+
+    for (RecordedEvent event : RecordingFile.readAllEvents(Path.of(args[0]))) {
+        String type = event.getEventType().getName();
+        if (! (stageFields.get(type) instanceof String field)) continue;
+
+        var stage = new Stage(type, Objects.toString(event.getString(field), "?"));
+        durations.computeIfAbsent(stage, _ -> new ArrayList<>()).add(event.getDuration().toNanos());
+
+        if (event.hasField("queueDepth")) maxQueueDepth.merge(stage, event.getInt("queueDepth"), Math::max);
+        if (event.hasField("status") && event.getInt("status") != 0) failures.merge(stage, 1, Integer::sum);
+    }
+
+    IO.println("%-16s %-32s %8s %10s %10s %10s %10s %10s %s".formatted(
+                "event", "stage", "count", "total ms", "mean ms", "p50 ms", "p99 ms", "max ms", "notes"));
+
+    durations.forEach((stage, nanos) -> {
+        Collections.sort(nanos);
+        long total = nanos.stream().mapToLong(Long::longValue).sum();
+        String notes = String.join(" ",
+                maxQueueDepth.containsKey(stage) ? "max queue " + maxQueueDepth.get(stage) : "",
+                failures.containsKey(stage) ? "failed " + failures.get(stage) : "").strip();
+        IO.println("%-16s %-32s %8d %10.1f %10.3f %10.3f %10.3f %10.3f %s".formatted(
+                    stage.event(), stage.name(), nanos.size(),
+                    millis(total), millis(total / nanos.size()),
+                    millis(percentile(nanos, 0.50)), millis(percentile(nanos, 0.99)), millis(nanos.getLast()),
+                    notes));
+    });
+}
+
+long percentile(List<Long> sorted, double q) {
+    int rank = (int) Math.ceil(q * sorted.size());
+    return sorted.get(Math.max(0, rank - 1));
+}
+
+double millis(long nanos) {
+    return nanos / 1_000_000.0;
+}
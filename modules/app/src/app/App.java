@@ -11,6 +11,8 @@ import chariot.model.Arena;
 
 import teambattle.http.TeamBattleHttpSinkProvider;
 import teambattle.replay.TeamBattleReplaySourceProvider;
+import tb.lichess.LichessCache;
+import tb.lichess.RequestScheduler;
 import tb.source.TeamBattleSourceProvider;
 import tb.transformer.ToHttpEventProvider;
 
@@ -177,15 +179,16 @@ public record App(AppConfig config, Client client, List<ResolvedPipeline> pipeli
 
                 basePanel.add(panel, BorderLayout.CENTER);
 
-                if (! (client.teams().byTeamId(id).orElse(null) instanceof Team team)) return;
+                if (! (LichessCache.shared().get("teams/byTeamId", id,
+                        () -> RequestScheduler.shared().interactive("teams/byTeamId", () -> client.teams().byTeamId(id))).orElse(null) instanceof Team team)) return;
 
                 Thread.ofPlatform().start(() -> {
 
                     Stream<Tournament> stream = preSelectedArena
                         .map(arena -> Stream.of(new Tournament(arena.id(), arena.tourInfo().name())))
                         .orElseGet(() -> Stream.concat(
-                            tourStream(client.teams().arenaByTeamId(id, p -> p.statusStarted()).stream(), Tournament::new),
-                            tourStream(client.teams().arenaByTeamId(id, p -> p.statusCreated().max(1000)).stream(), Tournament::new)));
+                            tourStream(RequestScheduler.shared().interactive("teams/arenaByTeamId", () -> client.teams().arenaByTeamId(id, p -> p.statusStarted())).stream(), Tournament::new),
+                            tourStream(RequestScheduler.shared().interactive("teams/arenaByTeamId", () -> client.teams().arenaByTeamId(id, p -> p.statusCreated().max(1000))).stream(), Tournament::new)));
 
                     try {
                         stream.forEach(tournament -> {
@@ -198,7 +201,8 @@ public record App(AppConfig config, Client client, List<ResolvedPipeline> pipeli
                                         .orElseGet(() -> switch (tourComp.field().getSelectedIndex()) {
                                         case int index when index > -1 -> {
                                             Tournament selectedTournament = tourComp.field().getItemAt(index);
-                                            yield switch (client.tournaments().arenaById(selectedTournament.id())) {
+                                            yield switch (LichessCache.shared().get("tournaments/arenaById", selectedTournament.id(),
+                                                    () -> RequestScheduler.shared().interactive("tournaments/arenaById", () -> client.tournaments().arenaById(selectedTournament.id())))) {
                                                 case Entry(Arena arena) -> startLiveThread(team, arena, callback);
                                                 case NoEntry<Arena> nope -> Thread.ofPlatform().start(() -> {
                                                     System.out.println("Failed to lookup arena with id %s - %s".formatted(selectedTournament.id(), nope));
@@ -301,7 +305,7 @@ public record App(AppConfig config, Client client, List<ResolvedPipeline> pipeli
             Config sinkConfig = new HttpEventGUI.GUIConfig(config.cssChoice(), arena.tourInfo().name());
             Sink sink = sinkProvider.of(sinkConfig);
 
-            pipelines.add(new ResolvedPipeline(source, List.of(transformer), sink));
+            pipelines.add(new ResolvedPipeline(source, List.of(transformer), sink, config.guiLane()));
 
             if (config.httpEnabled()) {
                 pipelines.add(buildHttpPipeline(source, transformer));
@@ -332,7 +336,7 @@ public record App(AppConfig config, Client client, List<ResolvedPipeline> pipeli
             Config sinkConfig = new HttpEventGUI.GUIConfig(config.cssChoice(), "Replay");
             Sink sink = sinkProvider.of(sinkConfig);
 
-            pipelines.add(new ResolvedPipeline(source, List.of(transformer), sink));
+            pipelines.add(new ResolvedPipeline(source, List.of(transformer), sink, config.guiLane()));
 
             if (config.httpEnabled()) {
                 pipelines.add(buildHttpPipeline(source, transformer));
@@ -369,7 +373,7 @@ public record App(AppConfig config, Client client, List<ResolvedPipeline> pipeli
         var address = TeamBattleHttpSinkProvider.HttpSinkConfig.address(bindAddress.getAddress(), bindAddress.getPort());
         Config httpSinkConfig = TeamBattleHttpSinkProvider.HttpSinkConfig.of(address, cssPath);
         Sink httpSink = httpSinkProvider.of(httpSinkConfig);
-        return new ResolvedPipeline(source, List.of(transformer), httpSink);
+        return new ResolvedPipeline(source, List.of(transformer), httpSink, config.httpLane());
     }
 
     void clearPipelines() {
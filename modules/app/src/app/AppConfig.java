@@ -4,6 +4,8 @@ import module java.base;
 import module java.prefs;
 import module java.desktop;
 
+import tba.api.LaneConfig;
+
 public record AppConfig(Preferences prefs) {
 
     static AppConfig withSyncOnExit(Preferences prefs) {
@@ -39,6 +41,16 @@ public record AppConfig(Preferences prefs) {
         };
     }
 
+    // Lanes feeding the window and the web page,
+    // optional "capacity" and "overflow" (block, dropOldest, coalesce) in the guiLane and httpLane nodes
+    public LaneConfig guiLane() {
+        return LaneConfig.of(prefs.node("guiLane"));
+    }
+
+    public LaneConfig httpLane() {
+        return LaneConfig.of(prefs.node("httpLane"));
+    }
+
     public Optional<Path> cssCustomPath() {
         return Optional.ofNullable(prefs.get("cssCustomPath", null)).map(Path::of);
     }
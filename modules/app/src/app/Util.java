@@ -13,6 +13,8 @@ import app.AppConfig.SelectedTeam.*;
 import chariot.Client;
 import chariot.model.Arena;
 import chariot.model.Some;
+import tb.lichess.LichessCache;
+import tb.lichess.RequestScheduler;
 
 public interface Util {
 
@@ -152,7 +154,7 @@ public interface Util {
                     .map(c -> c.thenComparing(Comparator.naturalOrder()))
                     .orElseGet(() -> Comparator.naturalOrder());
 
-                List<TeamIdAndName> teams = client.teams().search(teamNameSearch).stream()
+                List<TeamIdAndName> teams = RequestScheduler.shared().interactive("teams/search", () -> client.teams().search(teamNameSearch)).stream()
                     .limit(10)
                     .map(team -> new TeamIdAndName(team.id(), team.name()))
                     .sorted(Comparator.comparing(TeamIdAndName::id, comparator.reversed()))
@@ -174,7 +176,7 @@ public interface Util {
             String userIdSearch = sbuiField.getText();
             if (! userIdSearch.isBlank()) {
                 comboBox.removeAllItems();
-                client.teams().byUserId(userIdSearch).stream()
+                RequestScheduler.shared().interactive("teams/byUserId", () -> client.teams().byUserId(userIdSearch)).stream()
                     .map(team -> new TeamIdAndName(team.id(), team.name()))
                     .forEach(team -> SwingUtilities.invokeLater(() -> comboBox.addItem(team)));
             }
@@ -193,7 +195,8 @@ public interface Util {
             String teamIdSearch = sbtiField.getText();
             if (! teamIdSearch.isBlank()) {
                 comboBox.removeAllItems();
-                client.teams().byTeamId(teamIdSearch)
+                LichessCache.shared().get("teams/byTeamId", teamIdSearch,
+                        () -> RequestScheduler.shared().interactive("teams/byTeamId", () -> client.teams().byTeamId(teamIdSearch)))
                     .map(team -> new TeamIdAndName(team.id(), team.name()))
                     .ifPresent(team -> SwingUtilities.invokeLater(() -> comboBox.addItem(team)));
             }
@@ -213,7 +216,8 @@ public interface Util {
             String arenaIdSearch = sbaiField.getText();
             if (! arenaIdSearch.isBlank()) {
 
-                if (client.tournaments().arenaById(arenaIdSearch).orElse(null) instanceof Arena arena
+                if (LichessCache.shared().get("tournaments/arenaById", arenaIdSearch,
+                        () -> RequestScheduler.shared().interactive("tournaments/arenaById", () -> client.tournaments().arenaById(arenaIdSearch))).orElse(null) instanceof Arena arena
                     && arena.teamBattle() instanceof Some(var teamBattle)) {
                     arenaReference.set(Optional.of(arena));
                     comboBox.removeAllItems();
@@ -5,6 +5,8 @@ import module tba.api;
 import module java.base;
 import module java.desktop;
 
+import java.util.List;
+
 import app.AppConfig.CSSChoice;
 
 import tba.api.Event;
@@ -50,6 +52,38 @@ public class HttpEventGUI implements SinkProvider {
             }
         }
 
+        @Override
+        public void acceptAll(List<Event> events) {
+            if (! (editor.getDocument() instanceof HTMLDocument htmlDocument
+                && htmlDocument.getElement("messages") instanceof Element messages)) {
+                System.out.println("No document!");
+                return;
+            }
+
+            // Newest message goes on top,
+            // so build the burst newest-first and insert it with a single document mutation.
+            StringBuilder sb = new StringBuilder();
+            for (Event event : events.reversed()) {
+                if (event instanceof HttpEvent(var html)) {
+                    sb.append(html);
+                } else {
+                    System.out.println("Unexpected event " + event);
+                }
+            }
+
+            synchronized(editor) {
+                try { htmlDocument.insertAfterStart(messages, sb.toString());
+                } catch (Exception ex) { ex.printStackTrace(); }
+            }
+        }
+
+        @Override
+        public void rewind() {
+            synchronized(editor) {
+                editor.setText(htmlTemplate.formatted(""));
+            }
+        }
+
         @Override
         public void close() {
             dispose();
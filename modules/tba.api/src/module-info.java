@@ -2,6 +2,8 @@ module tba.api {
     exports tba.api;
 
     requires transitive java.prefs;
+    requires java.management;
+    requires jdk.jfr;
 
     provides tba.api.SinkProvider with tba.api.ConsoleSinkProvider;
 
@@ -78,6 +78,19 @@ public class ConsoleSinkProvider implements SinkProvider {
                 }
             }
 
+            @Override
+            public void acceptAll(List<Event> events) {
+                StringBuilder sb = new StringBuilder();
+                for (Event event : events) {
+                    if (event instanceof TextEvent(String message)) {
+                        sb.append(message).append(System.lineSeparator());
+                    } else {
+                        accept(event);
+                    }
+                }
+                System.out.print(sb);
+            }
+
             @Override
             public void close() {}
         };
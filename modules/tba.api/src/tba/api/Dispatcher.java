@@ -0,0 +1,144 @@
+package tba.api;
+
+import module java.base;
+
+import tba.api.PipelineGraph.Branch;
+import tba.api.PipelineGraph.Node;
+
+// Moves events from a Source, through the Transformers of its tree, into the Sink lanes.
+//
+// The coalesce key of a source event follows the event through the Transformers,
+// unless a Transformer produces an event with a key of its own.
+// Keys are qualified by Transformer, so the output of two Transformers into the same Sink doesn't coalesce.
+final class Dispatcher {
+
+    private final Map<Sink, SinkLane> lanes;
+    private final Map<Branch, Output> outputs = new IdentityHashMap<>();
+
+    Dispatcher(PipelineGraph graph, Map<Sink, SinkLane> lanes) {
+        this.lanes = lanes;
+        Map<Transformer, StageMetrics> transformerMetrics = new IdentityHashMap<>();
+        graph.roots().forEach(root -> collectOutputs(root.node(), transformerMetrics));
+    }
+
+    private void collectOutputs(Node node, Map<Transformer, StageMetrics> transformerMetrics) {
+        for (Branch branch : node.branches()) {
+            StageMetrics metrics = transformerMetrics.computeIfAbsent(branch.transformer(),
+                    t -> Metrics.registry().stage(StageMetrics.Kind.transformer, t));
+            outputs.put(branch, new Output(branch, metrics));
+            collectOutputs(branch.node(), transformerMetrics);
+        }
+    }
+
+    void deliver(Node node, Event event) throws InterruptedException {
+        deliver(node, event, event.coalesceKey().orElse(null));
+    }
+
+    private void deliver(Node node, Event event, Object coalesceKey) throws InterruptedException {
+        for (Sink sink : node.sinks()) {
+            lanes.get(sink).put(event, coalesceKey);
+        }
+        // Each branch transforms the event once, no matter how many Sinks are below it
+        for (Branch branch : node.branches()) {
+            Output output = outputs.get(branch);
+            output.call(event, coalesceKey, () -> branch.transformer().transform(event, output));
+        }
+    }
+
+    // The Source of the tree is done, top-down so held back events pass through the Transformers below
+    void flush(Node node) throws InterruptedException {
+        for (Branch branch : node.branches()) {
+            Output output = outputs.get(branch);
+            output.call(null, null, () -> branch.transformer().flush(output));
+            flush(branch.node());
+        }
+    }
+
+    // Where a Transformer puts its output.
+    // Output during a call from the runtime is collected and delivered after the call,
+    // so the latency of the Transformer doesn't include the stages below it,
+    // and it carries the coalesce key of the input event.
+    // Output from other threads (i.e a time window closing) is delivered right away, with only its own key.
+    //
+    // A call holds the lock of its branch until its output is delivered, so the source thread
+    // and a Transformer's own threads take turns in the stages below.
+    // The Transformer itself runs on its Execution, if it has one, else on the calling thread.
+    private final class Output implements Consumer<Event> {
+        final Branch branch;
+        final StageMetrics metrics;
+        final Execution execution;
+        final ReentrantLock lock = new ReentrantLock();
+        final List<Event> collected = new ArrayList<>();
+        volatile Thread caller;
+
+        Output(Branch branch, StageMetrics metrics) {
+            this.branch = branch;
+            this.metrics = metrics;
+            this.execution = branch.transformer().execution().orElse(null);
+        }
+
+        @Override
+        public void accept(Event event) {
+            if (Thread.currentThread() == caller) {
+                collected.add(event);
+                return;
+            }
+            try {
+                deliver(branch.node(), event, event.coalesceKey().orElse(null));
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Object keyOf(Event transformed, Object inputKey) {
+            return transformed.coalesceKey()
+                .or(() -> Optional.ofNullable(inputKey).map(k -> List.of(branch.transformer(), k)))
+                .orElse(null);
+        }
+
+        // input - the event being transformed, or null when flushing
+        void call(Event input, Object inputKey, Runnable transformerCall) throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                var jfr = new TransformEvent();
+                jfr.begin();
+                long begin = metrics.begin();
+                Runnable work = () -> {
+                    caller = Thread.currentThread();
+                    try {
+                        transformerCall.run();
+                    } finally {
+                        caller = null;
+                    }
+                };
+                try {
+                    if (execution == null) {
+                        work.run();
+                    } else {
+                        execution.run(work);
+                    }
+                    metrics.end(begin, input == null ? 0 : 1);
+                } catch (RuntimeException ex) {
+                    // Skip this branch for this event, but keep the pipeline running
+                    metrics.failed(begin);
+                    ex.printStackTrace();
+                    collected.clear();
+                } finally {
+                    if (jfr.shouldCommit()) {
+                        jfr.transformer = metrics.name();
+                        jfr.eventType = input == null ? "flush" : input.getClass().getSimpleName();
+                        jfr.commit();
+                    }
+                }
+
+                List<Event> transformed = List.copyOf(collected);
+                collected.clear();
+                for (Event event : transformed) {
+                    deliver(branch.node(), event, keyOf(event, inputKey));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
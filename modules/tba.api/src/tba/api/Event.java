@@ -1,4 +1,12 @@
 package tba.api;
 
+import java.util.Optional;
+
 public interface Event {
+
+    // Events with equal keys supersede each other,
+    // i.e only the latest one matters if a Sink lags behind (OverflowPolicy.coalesce)
+    default Optional<Object> coalesceKey() {
+        return Optional.empty();
+    }
 }
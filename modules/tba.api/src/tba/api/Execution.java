@@ -0,0 +1,183 @@
+package tba.api;
+
+import module java.base;
+import java.util.prefs.Preferences;
+
+// How the work of a stage gets its threads.
+//
+//   virtual   - a virtual thread per task, no limit. Good for blocking I/O, i.e calls to Lichess.
+//   platform  - a pool of `threads` platform threads doing the work.
+//               Good for CPU-bound work (rendering) on a machine which also streams/encodes video.
+//   eventLoop - a single platform thread doing the work, one piece at a time, in the order it is handed over.
+//
+// Long-running tasks (stream readers, lane consumers) are started with start(...) and don't count
+// towards the limit - they mostly wait. The actual work is done in run(...), which hands it to the pool
+// (or loop) and waits for it, or in submit(...), which hands it over and returns - so the limit is on work, not on threads.
+// Threads are named after the Execution, so they are easy to spot in a thread dump or a JFR recording.
+//
+// Executions are shared by name - asking for an Execution by a name which is already in use
+// gives the existing one, so stages configured with the same name share the same pool or loop.
+public final class Execution {
+
+    public enum Kind { virtual, platform, eventLoop }
+
+    // What kind of work a stage does, picks the Kind when nothing is configured
+    public enum Hint { io, cpu }
+
+    private final String name;
+    private final Kind kind;
+    private final int threads;
+    private final ExecutorService workers;
+    private final ThreadFactory threadFactory;
+
+    private static final Map<String, Execution> named = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Execution> workingFor = new ThreadLocal<>();
+
+    private Execution(String name, Kind kind, int threads) {
+        this.name = name;
+        this.kind = kind;
+        this.threads = threads;
+        this.threadFactory = builder(name + "-", 0).factory();
+        // Daemons, as a shared pool lives as long as the application
+        ThreadFactory workerFactory = Thread.ofPlatform().name(name + "-worker-", 0).daemon(true).factory();
+        this.workers = kind == Kind.virtual ? null : Executors.newFixedThreadPool(threads,
+                work -> workerFactory.newThread(() -> {
+                    workingFor.set(this);
+                    work.run();
+                }));
+    }
+
+    private static Execution shared(String name, Kind kind, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive - " + threads);
+        Execution execution = named.computeIfAbsent(name, _ -> new Execution(name, kind, threads));
+        if (execution.kind != kind || execution.threads != threads) {
+            System.out.println("Execution %s is already %s, not changing it to %s with %d threads".formatted(
+                        name, execution, kind, threads));
+        }
+        return execution;
+    }
+
+    public static Execution virtual(String name) {
+        return shared(name, Kind.virtual, Integer.MAX_VALUE);
+    }
+
+    public static Execution platform(String name, int threads) {
+        return shared(name, Kind.platform, threads);
+    }
+
+    public static Execution eventLoop(String name) {
+        return shared(name, Kind.eventLoop, 1);
+    }
+
+    public static Execution of(String name, Hint hint) {
+        return switch(hint) {
+            case io  -> virtual(name);
+            case cpu -> platform(name, Runtime.getRuntime().availableProcessors());
+        };
+    }
+
+    // Reads the optional keys "execution" (virtual, platform or eventLoop), "threads" (for platform)
+    // and "executionName" (to share the Execution with other stages, defaults to name),
+    // falling back to the hint for missing or broken values.
+    public static Execution of(String defaultName, Hint hint, Preferences prefs) {
+        String name = prefs.get("executionName", defaultName);
+        String kind = prefs.get("execution", null);
+        if (kind == null) return of(name, hint);
+        int threads = prefs.getInt("threads", Runtime.getRuntime().availableProcessors());
+        try {
+            return switch(Kind.valueOf(kind)) {
+                case virtual   -> virtual(name);
+                case platform  -> platform(name, threads);
+                case eventLoop -> eventLoop(name);
+            };
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Ignoring execution config %s (execution=%s, threads=%d) - %s".formatted(
+                        prefs.absolutePath(), kind, threads, ex.getMessage()));
+            return of(name, hint);
+        }
+    }
+
+    public void store(Preferences prefs) {
+        prefs.put("executionName", name);
+        prefs.put("execution", kind.name());
+        if (kind == Kind.platform) prefs.putInt("threads", threads);
+    }
+
+    public String name() { return name; }
+    public Kind kind() { return kind; }
+    public int threads() { return threads; }
+
+    public ThreadFactory threadFactory() {
+        return threadFactory;
+    }
+
+    // A thread for a long-running task, i.e a task which mostly waits
+    public Thread start(String taskName, Runnable task) {
+        return builder(name + "-" + taskName).start(task);
+    }
+
+    // A short task, queued on the pool (or loop) - or on a thread of its own for virtual.
+    // Nobody may be waiting on the Future, so a failure is also printed.
+    public Future<?> submit(String taskName, Runnable task) {
+        Runnable reported = () -> {
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                System.err.println("Task %s of %s failed".formatted(taskName, name));
+                ex.printStackTrace();
+                throw ex;
+            }
+        };
+        if (workers == null) {
+            var future = new FutureTask<Void>(reported, null);
+            start(taskName, future);
+            return future;
+        }
+        return workers.submit(reported);
+    }
+
+    // Does the work on a thread of the pool (or loop) and waits for it,
+    // or right away on the calling thread for virtual, and when called from within the pool.
+    // A RuntimeException of the work is thrown here.
+    public void run(Runnable work) throws InterruptedException {
+        if (workers == null || workingFor.get() == this) {
+            work.run();
+            return;
+        }
+        Future<?> done = workers.submit(work);
+        try {
+            done.get();
+        } catch (ExecutionException ex) {
+            switch (ex.getCause()) {
+                case RuntimeException re -> throw re;
+                case Error error -> throw error;
+                case Throwable t -> throw new RuntimeException(t);
+            }
+        } catch (InterruptedException ex) {
+            done.cancel(true);
+            throw ex;
+        }
+    }
+
+    private Thread.Builder builder(String threadName) {
+        return switch(kind) {
+            case virtual -> Thread.ofVirtual().name(threadName);
+            case platform, eventLoop -> Thread.ofPlatform().name(threadName);
+        };
+    }
+
+    private Thread.Builder builder(String prefix, long start) {
+        return switch(kind) {
+            case virtual -> Thread.ofVirtual().name(prefix, start);
+            case platform, eventLoop -> Thread.ofPlatform().name(prefix, start);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return switch(kind) {
+            case platform -> "%s(%s, %d threads)".formatted(kind, name, threads);
+            default       -> "%s(%s)".formatted(kind, name);
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package tba.api;
+
+import module java.base;
+
+// Latency histogram with fixed log-linear buckets (in the spirit of HdrHistogram),
+// each power of two is split into 8 sub-buckets, i.e ~12% precision.
+// Recording is an index calculation and an atomic increment - no allocation.
+public final class Histogram {
+
+    static final int subBucketBits = 3;
+    static final int subBuckets = 1 << subBucketBits;
+    static final int maxExponent = 40; // 2^40 ns ~ 18 minutes, larger values end up in the last bucket
+    static final int bucketCount = (maxExponent - subBucketBits + 2) * subBuckets;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketCount);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) total += counts.get(i);
+        return total;
+    }
+
+    public long sum() { return sum.sum(); }
+    public long max() { return max.get(); }
+
+    public long mean() {
+        long count = count();
+        return count == 0 ? 0 : sum() / count;
+    }
+
+    // Upper bound (nanos) of the bucket holding the q-quantile, 0 <= q <= 1
+    public long percentile(double q) {
+        long[] snapshot = snapshot();
+        long total = Arrays.stream(snapshot).sum();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), max());
+        }
+        return max();
+    }
+
+    // Number of recorded values in buckets whose upper bound is at most the limit
+    public long countAtMost(long nanos) {
+        long total = 0;
+        for (int i = 0; i < bucketCount && upperBound(i) <= nanos; i++) total += counts.get(i);
+        return total;
+    }
+
+    long[] snapshot() {
+        long[] snapshot = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) snapshot[i] = counts.get(i);
+        return snapshot;
+    }
+
+    static int index(long value) {
+        if (value < subBuckets) return (int) value;
+        int exponent = Math.min(maxExponent, 63 - Long.numberOfLeadingZeros(value));
+        if (exponent == maxExponent && value >= (1L << (maxExponent + 1))) return bucketCount - 1;
+        int subBucket = (int) (value >>> (exponent - subBucketBits)) & (subBuckets - 1);
+        return (exponent - subBucketBits + 1) * subBuckets + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < subBuckets) return index;
+        int exponent = index / subBuckets + subBucketBits - 1;
+        int subBucket = index % subBuckets;
+        long width = 1L << (exponent - subBucketBits);
+        return ((long) (subBuckets + subBucket) << (exponent - subBucketBits)) + width - 1;
+    }
+}
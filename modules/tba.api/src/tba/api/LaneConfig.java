@@ -0,0 +1,56 @@
+package tba.api;
+
+import java.time.Duration;
+import java.util.prefs.Preferences;
+
+// capacity    - max number of events waiting for the Sink
+// maxBatch    - max number of events handed to the Sink at once
+// batchWindow - how long to wait for more events before handing over a batch
+// overflow    - what to do with events when the lane is full
+// execution   - the thread of the lane, and the permits for handing events to the Sink
+public record LaneConfig(int capacity, int maxBatch, Duration batchWindow, OverflowPolicy overflow, Execution execution) {
+
+    public LaneConfig {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive - " + capacity);
+        if (maxBatch < 1) throw new IllegalArgumentException("maxBatch must be positive - " + maxBatch);
+        if (batchWindow.isNegative()) throw new IllegalArgumentException("batchWindow can't be negative - " + batchWindow);
+        if (overflow == null) throw new IllegalArgumentException("overflow policy missing");
+        if (execution == null) throw new IllegalArgumentException("execution missing");
+    }
+
+    public static LaneConfig of() {
+        return of(1024);
+    }
+
+    public static LaneConfig of(int capacity) {
+        return new LaneConfig(capacity, 64, Duration.ofMillis(10), OverflowPolicy.block, Execution.virtual("sink"));
+    }
+
+    // Reads the optional keys "capacity", "overflow" (block, dropOldest or coalesce),
+    // and "execution"/"threads" (see Execution), falling back to the defaults for missing or broken values.
+    public static LaneConfig of(Preferences prefs) {
+        LaneConfig defaults = of();
+        int capacity = prefs.getInt("capacity", defaults.capacity());
+        String overflow = prefs.get("overflow", defaults.overflow().name());
+        Execution execution = Execution.of("sink", Execution.Hint.io, prefs);
+        try {
+            return of(capacity).withOverflow(OverflowPolicy.valueOf(overflow)).withExecution(execution);
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Ignoring lane config %s (capacity=%d, overflow=%s) - %s".formatted(
+                        prefs.absolutePath(), capacity, overflow, ex.getMessage()));
+            return defaults;
+        }
+    }
+
+    public LaneConfig withBatch(int maxBatch, Duration batchWindow) {
+        return new LaneConfig(capacity, maxBatch, batchWindow, overflow, execution);
+    }
+
+    public LaneConfig withOverflow(OverflowPolicy overflow) {
+        return new LaneConfig(capacity, maxBatch, batchWindow, overflow, execution);
+    }
+
+    public LaneConfig withExecution(Execution execution) {
+        return new LaneConfig(capacity, maxBatch, batchWindow, overflow, execution);
+    }
+}
@@ -0,0 +1,135 @@
+package tba.api;
+
+import module java.base;
+import module java.management;
+
+// Registry of the stage metrics the runtime collects around
+// Source.events(), Transformer.transform and Sink.accept.
+// Every stage instance has metrics of its own, published as an MXBean, tba:type=Stage,kind=...,name=...
+// A stage is named after its provider (see TBA.resolvePipelines), or else after its class,
+// and numbered if the name is taken by another instance - "file", "file-2".
+// The metrics are released when the pipelines of the stage are done, see TBA.runPipelines.
+public final class Metrics {
+
+    private static final Metrics registry = new Metrics();
+
+    public static Metrics registry() {
+        return registry;
+    }
+
+    // By stage instance - equal stages (i.e records with the same config) are still different stages
+    private final Map<Object, StageMetrics> stages = new IdentityHashMap<>();
+    private final Map<Object, String> names = new IdentityHashMap<>();
+    private final Set<String> taken = new HashSet<>();
+
+    private Metrics() {}
+
+    // Names the stage, before its metrics are asked for
+    public synchronized void name(Object stage, String name) {
+        names.putIfAbsent(stage, name);
+    }
+
+    public synchronized StageMetrics stage(StageMetrics.Kind kind, Object stage) {
+        return stages.computeIfAbsent(stage, _ -> {
+            String base = names.getOrDefault(stage, nameOf(stage));
+            String name = base;
+            for (int n = 2; ! taken.add(kind + "/" + name); n++) {
+                name = base + "-" + n;
+            }
+            var metrics = new StageMetrics(kind, name);
+            register(metrics);
+            return metrics;
+        });
+    }
+
+    public synchronized void release(Object stage) {
+        names.remove(stage);
+        if (stages.remove(stage) instanceof StageMetrics metrics) {
+            taken.remove(metrics.kind() + "/" + metrics.name());
+            unregister(metrics);
+        }
+    }
+
+    public synchronized List<StageMetrics> stages() {
+        return stages.values().stream()
+            .sorted(Comparator.comparing(StageMetrics::kind).thenComparing(StageMetrics::name))
+            .toList();
+    }
+
+    static final List<Long> bucketLimitsNanos = List.of(
+            10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L, 10_000_000_000L);
+
+    // Prometheus text exposition format
+    public String prometheus() {
+        List<StageMetrics> all = stages();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("# TYPE tba_stage_events_total counter\n");
+        all.forEach(s -> sb.append("tba_stage_events_total%s %d\n".formatted(labels(s), s.getEvents())));
+
+        sb.append("# TYPE tba_stage_errors_total counter\n");
+        all.forEach(s -> sb.append("tba_stage_errors_total%s %d\n".formatted(labels(s), s.getErrors())));
+
+        sb.append("# TYPE tba_stage_dropped_total counter\n");
+        all.forEach(s -> sb.append("tba_stage_dropped_total%s %d\n".formatted(labels(s), s.getDropped())));
+
+        sb.append("# TYPE tba_stage_in_flight gauge\n");
+        all.forEach(s -> sb.append("tba_stage_in_flight%s %d\n".formatted(labels(s), s.getInFlight())));
+
+        sb.append("# TYPE tba_stage_latency_seconds histogram\n");
+        for (StageMetrics s : all) {
+            Histogram latency = s.latency();
+            String labels = labels(s);
+            String prefix = labels.substring(0, labels.length() - 1);
+            for (long limit : bucketLimitsNanos) {
+                sb.append("tba_stage_latency_seconds_bucket%s,le=\"%s\"} %d\n".formatted(
+                            prefix, seconds(limit), latency.countAtMost(limit)));
+            }
+            long count = latency.count();
+            sb.append("tba_stage_latency_seconds_bucket%s,le=\"+Inf\"} %d\n".formatted(prefix, count));
+            sb.append("tba_stage_latency_seconds_sum%s %s\n".formatted(labels, seconds(latency.sum())));
+            sb.append("tba_stage_latency_seconds_count%s %d\n".formatted(labels, count));
+        }
+        return sb.toString();
+    }
+
+    static String labels(StageMetrics stage) {
+        return "{kind=\"%s\",stage=\"%s\"}".formatted(stage.kind(),
+                stage.name().replace("\\", "\\\\").replace("\"", "\\\""));
+    }
+
+    static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+
+    // An anonymous stage is named after the class it is made in, i.e FileSinkProvider rather than FileSinkProvider$1
+    static String nameOf(Object stage) {
+        if (stage instanceof OnExecution(_, Transformer transformer)) return nameOf(transformer);
+        Class<?> type = stage.getClass();
+        while (type.isAnonymousClass() && type.getEnclosingClass() != null) {
+            type = type.getEnclosingClass();
+        }
+        return type.getSimpleName();
+    }
+
+    private static ObjectName objectName(StageMetrics metrics) throws MalformedObjectNameException {
+        return new ObjectName("tba:type=Stage,kind=%s,name=%s".formatted(
+                    metrics.kind(), ObjectName.quote(metrics.name())));
+    }
+
+    private static void register(StageMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName(metrics));
+        } catch (JMException ex) {
+            System.err.println("Failed to register metrics MXBean for %s - %s".formatted(metrics.name(), ex.getMessage()));
+        }
+    }
+
+    private static void unregister(StageMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(metrics));
+        } catch (JMException ex) {
+            System.err.println("Failed to unregister metrics MXBean for %s - %s".formatted(metrics.name(), ex.getMessage()));
+        }
+    }
+}
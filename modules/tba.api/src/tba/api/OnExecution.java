@@ -0,0 +1,33 @@
+package tba.api;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// A Transformer with the Execution picked by its pipeline config, see TBA.resolvePipelines
+record OnExecution(Execution on, Transformer transformer) implements Transformer {
+
+    @Override
+    public Event transform(Event event) {
+        return transformer.transform(event);
+    }
+
+    @Override
+    public void transform(Event event, Consumer<? super Event> downstream) {
+        transformer.transform(event, downstream);
+    }
+
+    @Override
+    public void flush(Consumer<? super Event> downstream) {
+        transformer.flush(downstream);
+    }
+
+    @Override
+    public Optional<Execution> execution() {
+        return Optional.of(on);
+    }
+
+    @Override
+    public String toString() {
+        return transformer.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package tba.api;
+
+// What a lane does with an event when its Sink can't keep up
+public enum OverflowPolicy {
+    // the producer waits until there is room
+    block,
+    // the oldest waiting event is dropped to make room
+    dropOldest,
+    // the event takes the place of a waiting event with the same Event.coalesceKey(),
+    // and otherwise waits for room as with block
+    coalesce
+}
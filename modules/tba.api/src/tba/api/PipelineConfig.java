@@ -5,4 +5,13 @@ import java.util.List;
 public record PipelineConfig(
         ProviderAndConfig<SourceProvider> source,
         List<ProviderAndConfig<TransformerProvider>> transformers,
-        ProviderAndConfig<SinkProvider> sink) {}
+        ProviderAndConfig<SinkProvider> sink,
+        LaneConfig lane) {
+
+    public PipelineConfig(
+            ProviderAndConfig<SourceProvider> source,
+            List<ProviderAndConfig<TransformerProvider>> transformers,
+            ProviderAndConfig<SinkProvider> sink) {
+        this(source, transformers, sink, LaneConfig.of());
+    }
+}
@@ -0,0 +1,63 @@
+package tba.api;
+
+import module java.base;
+
+// Pipelines merged into one tree per Source.
+// Pipelines which share a Source and a leading chain of Transformers share the same path in the tree,
+// so the events of that path are transformed once and then multicast to every Sink below it.
+// A Sink gets one lane, configured by the first pipeline ending in that Sink
+// (a different lane config of a later pipeline is logged and ignored).
+public record PipelineGraph(List<Root> roots, Map<Sink, LaneConfig> lanes) {
+
+    public record Root(Source source, Node node) {}
+
+    // The events at a node are delivered as-is to the node's Sinks,
+    // and transformed once per Branch for the Sinks further down.
+    public record Node(List<Sink> sinks, List<Branch> branches) {
+        public Stream<Sink> allSinks() {
+            return Stream.concat(sinks.stream(), branches.stream().flatMap(branch -> branch.node().allSinks()));
+        }
+    }
+
+    public record Branch(Transformer transformer, Node node) {}
+
+    public LaneConfig lane(Sink sink) {
+        return lanes.getOrDefault(sink, LaneConfig.of());
+    }
+
+    public static PipelineGraph of(List<ResolvedPipeline> pipelines) {
+        Map<Source, MutableNode> roots = new LinkedHashMap<>();
+        Map<Sink, LaneConfig> lanes = new IdentityHashMap<>();
+
+        for (ResolvedPipeline pipeline : pipelines) {
+            MutableNode node = roots.computeIfAbsent(pipeline.source(), _ -> new MutableNode());
+            for (Transformer transformer : pipeline.transformers()) {
+                node = node.branches.computeIfAbsent(transformer, _ -> new MutableNode());
+            }
+            if (! node.sinks.contains(pipeline.sink())) {
+                node.sinks.add(pipeline.sink());
+            }
+            LaneConfig lane = lanes.putIfAbsent(pipeline.sink(), pipeline.lane());
+            if (lane != null && ! lane.equals(pipeline.lane())) {
+                System.out.println("Sink %s already has lane %s, ignoring %s".formatted(
+                            pipeline.sink(), lane, pipeline.lane()));
+            }
+        }
+
+        return new PipelineGraph(roots.entrySet().stream()
+                .map(entry -> new Root(entry.getKey(), entry.getValue().toNode()))
+                .toList(),
+                Collections.unmodifiableMap(lanes));
+    }
+
+    private static class MutableNode {
+        final List<Sink> sinks = new ArrayList<>();
+        final Map<Transformer, MutableNode> branches = new LinkedHashMap<>();
+
+        Node toNode() {
+            return new Node(List.copyOf(sinks), branches.entrySet().stream()
+                    .map(entry -> new Branch(entry.getKey(), entry.getValue().toNode()))
+                    .toList());
+        }
+    }
+}
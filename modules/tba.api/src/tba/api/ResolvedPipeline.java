@@ -2,4 +2,9 @@ package tba.api;
 
 import java.util.List;
 
-public record ResolvedPipeline(Source source, List<Transformer> transformers, Sink sink) {}
+public record ResolvedPipeline(Source source, List<Transformer> transformers, Sink sink, LaneConfig lane) {
+
+    public ResolvedPipeline(Source source, List<Transformer> transformers, Sink sink) {
+        this(source, transformers, sink, LaneConfig.of());
+    }
+}
@@ -1,7 +1,21 @@
 package tba.api;
 
+import java.util.List;
+
 public interface Sink {
     void accept(Event event);
 
+    // Events which arrived close together, in arrival order.
+    // Sinks with a per-call cost can override this to handle a burst at once.
+    default void acceptAll(List<Event> events) {
+        for (Event event : events) {
+            accept(event);
+        }
+    }
+
+    // A looped graph starts over (see TBA.loopPipelines) - forget the events of the previous lap,
+    // so a lap starts out empty, as with a freshly resolved Sink.
+    default void rewind() {}
+
     void close();
 }
@@ -0,0 +1,15 @@
+package tba.api;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("tba.SinkAccept")
+@Label("Sink Accept")
+@Description("Sink.accept (or acceptAll) of one batch of events")
+@Category({"Team Battle Announcer", "Pipeline"})
+final class SinkAcceptEvent extends jdk.jfr.Event {
+    @Label("Sink") String sink;
+    @Label("Events") int events;
+}
@@ -0,0 +1,172 @@
+package tba.api;
+
+import module java.base;
+
+// A bounded FIFO in front of a Sink.
+// All pipelines ending in the same Sink feed the same lane,
+// and a single consumer delivers the events to the Sink in arrival order.
+// When the lane is full the OverflowPolicy decides whether producers wait,
+// the oldest event is dropped, or an event supersedes a waiting one with the same key.
+final class SinkLane {
+
+    private static final Object end = new Object();
+
+    // A waiting event. Coalescing replaces the event but keeps the place in line.
+    private static final class Slot {
+        final Object key;
+        Event event;
+
+        Slot(Object key, Event event) {
+            this.key = key;
+            this.event = event;
+        }
+    }
+
+    private final Sink sink;
+    private final StageMetrics metrics;
+    private final int capacity;
+    private final OverflowPolicy overflow;
+    private final Deque<Object> queue;
+    private final Map<Object, Slot> waitingByKey = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger producers = new AtomicInteger();
+    private final int maxBatch;
+    private final long batchWindowNanos;
+    private final Execution execution;
+
+    SinkLane(Sink sink, LaneConfig config) {
+        this.sink = sink;
+        this.metrics = Metrics.registry().stage(StageMetrics.Kind.sink, sink);
+        this.capacity = config.capacity();
+        this.overflow = config.overflow();
+        this.queue = new ArrayDeque<>(Math.min(capacity, 1024));
+        this.maxBatch = config.maxBatch();
+        this.batchWindowNanos = config.batchWindow().toNanos();
+        this.execution = config.execution();
+    }
+
+    Execution execution() {
+        return execution;
+    }
+
+    void register() {
+        producers.incrementAndGet();
+    }
+
+    // key - the coalesce key of the event, or null
+    void put(Event event, Object key) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            boolean coalesce = overflow == OverflowPolicy.coalesce && key != null;
+            if (coalesce && waitingByKey.get(key) instanceof Slot waiting) {
+                waiting.event = event;
+                metrics.dropped(1);
+                return;
+            }
+            while (queue.size() >= capacity) {
+                if (overflow == OverflowPolicy.dropOldest && queue.peekFirst() instanceof Slot) {
+                    queue.pollFirst();
+                    metrics.dropped(1);
+                } else {
+                    notFull.await();
+                }
+            }
+            Slot slot = new Slot(key, event);
+            if (coalesce) waitingByKey.put(key, slot);
+            queue.addLast(slot);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void producerDone() throws InterruptedException {
+        // Last one out tells the consumer there won't be any more events
+        if (producers.decrementAndGet() == 0) {
+            lock.lockInterruptibly();
+            try {
+                while (queue.size() >= capacity) notFull.await();
+                queue.addLast(end);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Waits at most timeoutNanos for the next event or the end marker, or forever if timeoutNanos is negative.
+    // Returns null on timeout.
+    private Object next(long timeoutNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                if (timeoutNanos < 0) {
+                    notEmpty.await();
+                } else if (timeoutNanos == 0) {
+                    return null;
+                } else {
+                    timeoutNanos = Math.max(0, notEmpty.awaitNanos(timeoutNanos));
+                }
+            }
+            Object next = queue.pollFirst();
+            notFull.signal();
+            if (next instanceof Slot slot) {
+                if (slot.key != null) waitingByKey.remove(slot.key, slot);
+                return slot.event;
+            }
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void run() throws InterruptedException {
+        List<Event> batch = new ArrayList<>(maxBatch);
+        boolean open = true;
+        while (open && next(-1) instanceof Event first) {
+            batch.add(first);
+
+            // Collect whatever else arrives within the window (or is already waiting),
+            // so the Sink can handle a burst in one go.
+            long deadline = System.nanoTime() + batchWindowNanos;
+            while (batch.size() < maxBatch) {
+                Object next = next(Math.max(0, deadline - System.nanoTime()));
+                if (next == null) break;
+                if (! (next instanceof Event event)) {
+                    open = false;
+                    break;
+                }
+                batch.add(event);
+            }
+
+            List<Event> events = List.copyOf(batch);
+            execution.run(() -> deliver(events));
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<Event> events) {
+        var jfr = new SinkAcceptEvent();
+        jfr.begin();
+        long begin = metrics.begin();
+        try {
+            if (events.size() == 1) {
+                sink.accept(events.getFirst());
+            } else {
+                sink.acceptAll(events);
+            }
+            metrics.end(begin, events.size());
+        } catch (RuntimeException ex) {
+            metrics.failed(begin);
+            // Don't let one bad batch stall the lane (and its blocked producers)
+            ex.printStackTrace();
+        }
+        if (jfr.shouldCommit()) {
+            jfr.sink = metrics.name();
+            jfr.events = events.size();
+            jfr.commit();
+        }
+    }
+}
@@ -8,4 +8,10 @@ public interface Source {
 
     void run();
 
+    // Prepares the Source to produce its events once more from the start,
+    // so a resolved pipeline can be run again without resolving the Source again.
+    // Returns false if the Source can't do that (i.e a live Source).
+    default boolean rewind() {
+        return false;
+    }
 }
@@ -0,0 +1,63 @@
+package tba.api;
+
+import module java.base;
+
+// Counters, in-flight gauge and latency of one kind of Source, Transformer or Sink.
+public final class StageMetrics implements StageMetricsMXBean {
+
+    public enum Kind { source, transformer, sink }
+
+    private final Kind kind;
+    private final String name;
+    private final LongAdder events = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final Histogram latency = new Histogram();
+
+    StageMetrics(Kind kind, String name) {
+        this.kind = kind;
+        this.name = name;
+    }
+
+    public long begin() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void end(long begin, int handledEvents) {
+        latency.record(System.nanoTime() - begin);
+        events.add(handledEvents);
+        inFlight.decrementAndGet();
+    }
+
+    public void failed(long begin) {
+        latency.record(System.nanoTime() - begin);
+        errors.increment();
+        inFlight.decrementAndGet();
+    }
+
+    public void counted(int handledEvents) {
+        events.add(handledEvents);
+    }
+
+    // Events which never reached the stage, dropped or superseded by an overflow policy
+    public void dropped(int droppedEvents) {
+        dropped.add(droppedEvents);
+    }
+
+    public Kind kind() { return kind; }
+    public String name() { return name; }
+    public Histogram latency() { return latency; }
+
+    @Override public String getKind() { return kind.name(); }
+    @Override public String getName() { return name; }
+    @Override public long getEvents() { return events.sum(); }
+    @Override public long getErrors() { return errors.sum(); }
+    @Override public long getDropped() { return dropped.sum(); }
+    @Override public long getInFlight() { return inFlight.get(); }
+    @Override public long getLatencyMeanMicros() { return latency.mean() / 1000; }
+    @Override public long getLatencyP50Micros() { return latency.percentile(0.5) / 1000; }
+    @Override public long getLatencyP99Micros() { return latency.percentile(0.99) / 1000; }
+    @Override public long getLatencyMaxMicros() { return latency.max() / 1000; }
+}
@@ -0,0 +1,14 @@
+package tba.api;
+
+public interface StageMetricsMXBean {
+    String getKind();
+    String getName();
+    long getEvents();
+    long getErrors();
+    long getDropped();
+    long getInFlight();
+    long getLatencyMeanMicros();
+    long getLatencyP50Micros();
+    long getLatencyP99Micros();
+    long getLatencyMaxMicros();
+}
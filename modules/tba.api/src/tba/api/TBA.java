@@ -46,6 +46,15 @@ public interface TBA {
         return new PipelineConfig(source, transformers, sink);
     }
 
+
+    static PipelineConfig pipelineConfig(
+            ProviderAndConfig<SourceProvider> source,
+            List<ProviderAndConfig<TransformerProvider>> transformers,
+            ProviderAndConfig<SinkProvider> sink,
+            LaneConfig lane) {
+        return new PipelineConfig(source, transformers, sink, lane);
+    }
+
     static List<ResolvedPipeline> resolvePipelines(List<PipelineConfig> unresolvedPipelines) {
         return resolvePipelines(unresolvedPipelines, new UI(){
             @Override public String crudeQuery(String prompt) { return ""; }
@@ -79,7 +88,9 @@ public interface TBA {
                         .configProvider(ui)
                         .noninteractiveConfig(configPrefs);
                     optConfig.ifPresent(config -> config.store(configPrefs));
-                    return optConfig.map(provider::of).orElse(null);
+                    return optConfig.map(provider::of)
+                        .map(named(provider.name()))
+                        .orElse(null);
                 });
 
             if (source == null) {
@@ -98,7 +109,14 @@ public interface TBA {
                                 .noninteractiveConfig(configPrefs);
                             optConfig.ifPresent(config -> config.store(configPrefs));
 
-                            return optConfig.map(provider::of).orElse(null);
+                            // The optional keys "execution"/"threads" pick the threads it runs on,
+                            // shared with other stages of the same provider (see Execution)
+                            return optConfig.map(provider::of)
+                                .map(transformer -> configPrefs.get("execution", null) == null
+                                        ? transformer
+                                        : Transformer.on(Execution.of(provider.name(), Execution.Hint.cpu, configPrefs), transformer))
+                                .map(named(provider.name()))
+                                .orElse(null);
                         });
                     if (transformer == null) {
                         ui.crudeMessage("No Transformer - " + transformerConfig);
@@ -121,7 +139,9 @@ public interface TBA {
                         .configProvider(ui)
                         .noninteractiveConfig(configPrefs);
                     optConfig.ifPresent(config -> config.store(configPrefs));
-                    return optConfig.map(provider::of).orElse(null);
+                    return optConfig.map(provider::of)
+                        .map(named(provider.name()))
+                        .orElse(null);
                 });
 
             if (sink == null) {
@@ -129,36 +149,107 @@ public interface TBA {
                 continue;
             }
 
-            resolvedPipelines.add(new ResolvedPipeline(source, transformers, sink));
+            resolvedPipelines.add(new ResolvedPipeline(source, transformers, sink, pipelineConfig.lane()));
         }
         return resolvedPipelines;
     }
 
+    // Resolving reuses the same Source and Transformer instances for the same configs,
+    // so pipelines with equal Source and Transformer configs end up sharing their path in the graph.
+    static PipelineGraph resolvePipelineGraph(List<PipelineConfig> unresolvedPipelines, UI ui) {
+        return PipelineGraph.of(resolvePipelines(unresolvedPipelines, ui));
+    }
+
 
     static void runPipelines(List<ResolvedPipeline> pipelines) {
+        runPipelines(PipelineGraph.of(pipelines));
+    }
 
-        try (var outerScope = StructuredTaskScope.open()) {
+    // Stages named after their provider in the metrics, see Metrics
+    private static <T> UnaryOperator<T> named(String name) {
+        return stage -> {
+            Metrics.registry().name(stage, name);
+            return stage;
+        };
+    }
 
-            for (ResolvedPipeline pipeline : pipelines) {
+    static void runPipelines(PipelineGraph graph) {
+        try {
+            runLap(graph);
+        } finally {
+            release(graph);
+        }
+    }
 
-                outerScope.fork(() -> {
-                    try (var innerScope = StructuredTaskScope.open()) {
-                        Stream<? extends Event> events = pipeline.source().events();
+    // The pipelines of the graph are done, so are the metrics of their stages
+    private static void release(PipelineGraph graph) {
+        for (PipelineGraph.Root root : graph.roots()) {
+            Metrics.registry().release(root.source());
+            release(root.node());
+        }
+    }
 
-                        for (Transformer transformer : pipeline.transformers()) {
-                            events = events.map(transformer::transform);
-                        }
+    private static void release(PipelineGraph.Node node) {
+        node.sinks().forEach(Metrics.registry()::release);
+        for (PipelineGraph.Branch branch : node.branches()) {
+            Metrics.registry().release(branch.transformer());
+            release(branch.node());
+        }
+    }
+
+    private static void runLap(PipelineGraph graph) {
+
+        // Each Sink is fed through its own bounded lane,
+        // with a single consumer - so a Sink sees events in order,
+        // and a slow Sink makes its producers wait instead of piling up work.
+        // Every Source (root) which reaches a Sink counts as one producer of that lane.
+        Map<Sink, SinkLane> lanes = new IdentityHashMap<>();
+        Map<PipelineGraph.Root, List<SinkLane>> rootLanes = new IdentityHashMap<>();
+        for (PipelineGraph.Root root : graph.roots()) {
+            List<SinkLane> reachable = root.node().allSinks()
+                .distinct()
+                .map(sink -> lanes.computeIfAbsent(sink, s -> new SinkLane(s, graph.lane(s))))
+                .toList();
+            reachable.forEach(SinkLane::register);
+            rootLanes.put(root, reachable);
+        }
+
+        Dispatcher dispatcher = new Dispatcher(graph, lanes);
 
-                        events.forEach(event -> innerScope.fork(() -> { pipeline.sink().accept(event); return null; }));
-                        innerScope.join();
+        try (var outerScope = StructuredTaskScope.open()) {
+
+            // The lanes run on threads of their Execution, in one nested scope per Execution
+            Map<Execution, List<SinkLane>> lanesByExecution = lanes.values().stream()
+                .collect(Collectors.groupingBy(SinkLane::execution, LinkedHashMap::new, Collectors.toList()));
+            lanesByExecution.forEach((execution, executionLanes) -> outerScope.fork(() -> {
+                try (var scope = StructuredTaskScope.open(StructuredTaskScope.Joiner.awaitAllSuccessfulOrThrow(),
+                            cf -> cf.withThreadFactory(execution.threadFactory()).withName(execution.name()))) {
+                    executionLanes.forEach(lane -> scope.fork(() -> { lane.run(); return null; }));
+                    scope.join();
+                }
+                return null;
+            }));
+
+            for (PipelineGraph.Root root : graph.roots()) {
+                StageMetrics sourceMetrics = Metrics.registry().stage(StageMetrics.Kind.source, root.source());
+                outerScope.fork(() -> {
+                    try (Stream<? extends Event> events = root.source().events()) {
+                        for (var iterator = events.iterator(); iterator.hasNext(); ) {
+                            Event event = iterator.next();
+                            sourceMetrics.counted(1);
+                            dispatcher.deliver(root.node(), event);
+                        }
+                    }
+                    dispatcher.flush(root.node());
+                    for (SinkLane lane : rootLanes.get(root)) {
+                        lane.producerDone();
                     }
                     return null;
                 });
             }
 
-            pipelines.stream()
-                .map(ResolvedPipeline::source)
-                .distinct()
+            graph.roots().stream()
+                .map(PipelineGraph.Root::source)
                 .forEach(source -> outerScope.fork(() -> { source.run(); return null; } ));
 
             outerScope.join();
@@ -168,6 +259,45 @@ public interface TBA {
         }
     }
 
+    // Runs the graph again and again, with a pause in between, for as long as all its Sources can rewind.
+    // The Sources, Transformers and Sinks are reused, the Sinks are rewound between laps,
+    // closing the Sinks is left to the caller.
+    static void loopPipelines(PipelineGraph graph, Duration pause) {
+        try {
+            loop(graph, pause);
+        } finally {
+            release(graph);
+        }
+    }
+
+    // The metrics carry on from lap to lap
+    private static void loop(PipelineGraph graph, Duration pause) {
+        while (! Thread.currentThread().isInterrupted()) {
+            runLap(graph);
+
+            try {
+                Thread.sleep(pause);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            List<Source> notRewound = graph.roots().stream()
+                .map(PipelineGraph.Root::source)
+                .filter(source -> ! source.rewind())
+                .toList();
+            if (! notRewound.isEmpty()) {
+                System.out.println("Not looping, can't rewind " + notRewound);
+                return;
+            }
+
+            graph.roots().stream()
+                .flatMap(root -> root.node().allSinks())
+                .distinct()
+                .forEach(Sink::rewind);
+        }
+    }
+
     static <T> String debug(Providers providers) {
         return String.join("\n",
                 debug("source providers", providers.source()),
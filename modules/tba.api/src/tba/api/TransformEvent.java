@@ -0,0 +1,15 @@
+package tba.api;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("tba.Transform")
+@Label("Transform")
+@Description("Transformer.transform of one event")
+@Category({"Team Battle Announcer", "Pipeline"})
+final class TransformEvent extends jdk.jfr.Event {
+    @Label("Transformer") String transformer;
+    @Label("Event Type") String eventType;
+}
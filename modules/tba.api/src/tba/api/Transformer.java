@@ -1,5 +1,32 @@
 package tba.api;
 
+import java.util.Optional;
+import java.util.function.Consumer;
+
 public interface Transformer {
     Event transform(Event event);
+
+    // The runtime calls this one.
+    // Transformers which merge, split or hold back events override it,
+    // and hand their output to downstream - now, or later from another thread.
+    // By default it is one event in and one event out, and null drops the event.
+    default void transform(Event event, Consumer<? super Event> downstream) {
+        if (transform(event) instanceof Event transformed) {
+            downstream.accept(transformed);
+        }
+    }
+
+    // The Source is done, pass on anything held back
+    default void flush(Consumer<? super Event> downstream) {}
+
+    // Where the runtime runs transform and flush - by default on the thread reading the Source.
+    // A pool is opt-in, with the "execution" key of the Transformer's config, see TBA and Execution.
+    default Optional<Execution> execution() {
+        return Optional.empty();
+    }
+
+    // The Transformer, run on the given Execution instead of its own choice
+    static Transformer on(Execution execution, Transformer transformer) {
+        return new OnExecution(execution, transformer);
+    }
 }
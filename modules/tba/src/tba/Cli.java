@@ -74,28 +74,23 @@ public class Cli {
             return;
         }
 
-        while (true) { // And I think it's gonna be a long long time...
-
-            List<ResolvedPipeline> resolvedPipelines = TBA.resolvePipelines(pipelines, ui);
-
-            if (resolvedPipelines.isEmpty()) {
-                ui.crudeMessage("So close! Was just about to resolve them pipelines, and then suddenly they all gone?! Awww!");
-                return;
-            }
-
-            TBA.runPipelines(resolvedPipelines);
+        // Resolve once - the replay source reads the recording a single time,
+        // and is then rewound for every lap.
+        List<ResolvedPipeline> resolvedPipelines = TBA.resolvePipelines(pipelines, ui);
 
-            try { Thread.sleep(Duration.ofSeconds(10));
-                // Did I fall asleep?
-            } catch (InterruptedException onlyForALittleWhile) {
-                Thread.currentThread().interrupt();
-                // Should I go now?
-                break;
-            }
+        if (resolvedPipelines.isEmpty()) {
+            ui.crudeMessage("So close! Was just about to resolve them pipelines, and then suddenly they all gone?! Awww!");
+            return;
+        }
 
-            for (var resolvedPipeline : resolvedPipelines) {
-                resolvedPipeline.sink().close();
-            }
+        try {
+            // And I think it's gonna be a long long time...
+            TBA.loopPipelines(PipelineGraph.of(resolvedPipelines), Duration.ofSeconds(10));
+        } finally {
+            resolvedPipelines.stream()
+                .map(ResolvedPipeline::sink)
+                .distinct()
+                .forEach(Sink::close);
         }
     }
 
@@ -202,8 +197,11 @@ public class Cli {
             return Optional.empty();
         }
 
+        // Optional "capacity" and "overflow" (block, dropOldest, coalesce) of the lane feeding the Sink
+        LaneConfig lane = LaneConfig.of(pipelineConfig);
+
         return _checkForAndParseTransformers(pipelineConfig, transformerMap)
-            .map(transformers -> TBA.pipelineConfig(source, transformers, sink));
+            .map(transformers -> TBA.pipelineConfig(source, transformers, sink, lane));
     }
 
 
@@ -376,6 +374,7 @@ public class Cli {
         Preferences p1_pipe4Prefs = pipeline1Prefs.node("4");
         p1_pipe4Prefs.put("sourceId", "1");
         p1_pipe4Prefs.put("sinkId", "4");
+        p1_pipe4Prefs.put("overflow", "coalesce");
 
         Preferences p1_p4_transformers = p1_pipe4Prefs.node("transformers");
         Preferences p1_p4_tf1 = p1_p4_transformers.node("1");
@@ -399,6 +398,7 @@ public class Cli {
 
         p2_pipe2Prefs.put("sourceId", "2");
         p2_pipe2Prefs.put("sinkId", "4");
+        p2_pipe2Prefs.put("overflow", "coalesce");
 
         Preferences p2_p2_transformers = p2_pipe2Prefs.node("transformers");
         Preferences p2_p2_tf1 = p2_p2_transformers.node("1");
@@ -88,6 +88,24 @@ public class FileSinkProvider implements SinkProvider {
                 }
             }
             @Override
+            public void acceptAll(List<Event> events) {
+                // One open/write/close for the whole burst
+                StringBuilder sb = new StringBuilder();
+                for (Event event : events) {
+                    if (event instanceof TextEvent(String message)) {
+                        sb.append("%s%n".formatted(message));
+                    } else {
+                        accept(event);
+                    }
+                }
+                if (sb.isEmpty()) return;
+                try {
+                    Files.writeString(path, sb, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } catch (IOException ioe) {
+                    ioe.printStackTrace();
+                }
+            }
+            @Override
             public void close() {}
         };
     }
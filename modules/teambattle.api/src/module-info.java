@@ -1,5 +1,6 @@
 module teambattle.api {
     requires tba.api;
+    requires jdk.jfr;
 
     exports teambattle.api;
     exports teambattle.spi;
@@ -43,6 +43,20 @@ public sealed interface EventRenderer {
         }
 
         public String render(TeamBattleEvent teamBattleEvent) {
+            var jfr = new RenderEvent();
+            jfr.begin();
+            try {
+                return renderWithReplacedNames(teamBattleEvent);
+            } finally {
+                if (jfr.shouldCommit()) {
+                    jfr.eventType = teamBattleEvent.getClass().getSimpleName();
+                    jfr.locale = bundle.getLocale().toLanguageTag();
+                    jfr.commit();
+                }
+            }
+        }
+
+        private String renderWithReplacedNames(TeamBattleEvent teamBattleEvent) {
             TeamBattleEvent withReplacedNames = replaceNames(teamBattleEvent, globalReplacer().andThen(memberReplacer()), globalReplacer.andThen(foeReplacer()));
             return switch(withReplacedNames) {
                 case Join(List<String> members) -> MessageFormat.format(bundle.getString("join"), groupOf(members, () -> bundle.getString("and")), members.size());
@@ -0,0 +1,15 @@
+package teambattle.api;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("tba.Render")
+@Label("Render")
+@Description("EventRenderer.render of one team battle event")
+@Category({"Team Battle Announcer", "Rendering"})
+final class RenderEvent extends jdk.jfr.Event {
+    @Label("Event Type") String eventType;
+    @Label("Locale") String locale;
+}
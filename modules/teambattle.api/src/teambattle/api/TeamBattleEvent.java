@@ -31,4 +31,14 @@ public sealed interface TeamBattleEvent extends Event, Serializable {
     }
     record TourEnd() implements TeamBattleEvent {}
 
+    // Only the latest Standings, and the latest Streak of a member, are worth showing
+    @Override
+    default Optional<Object> coalesceKey() {
+        return switch(this) {
+            case Standings _ -> Optional.of(Standings.class);
+            case Streak(var member, _) -> Optional.of(List.of(Streak.class, member));
+            default -> Optional.empty();
+        };
+    }
+
 }
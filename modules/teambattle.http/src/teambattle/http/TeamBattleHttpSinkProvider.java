@@ -132,7 +132,12 @@ public class TeamBattleHttpSinkProvider implements SinkProvider {
             throw new UncheckedIOException(ex);
         }
 
-        server.setExecutor(Executors.newCachedThreadPool());
+        // Set environment variable TBA_METRICS to also serve the pipeline metrics,
+        // in Prometheus text format, at /metrics
+        boolean metricsEnabled = System.getenv("TBA_METRICS") instanceof String;
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
 
         server.createContext("/", exchange -> {
             String requestPath = exchange.getRequestURI().getPath();
@@ -223,6 +228,14 @@ public class TeamBattleHttpSinkProvider implements SinkProvider {
                                 HeaderAndValue.of("numEvents", String.valueOf(eventsCopy.size()))));
                 }
 
+                case "/metrics" -> {
+                    if (metricsEnabled) {
+                        response(Metrics.registry().prometheus(), 200, exchange, "text/plain; version=0.0.4");
+                    } else {
+                        responseOnlyStatus(404, exchange);
+                    }
+                }
+
                 case "/style.css" -> response(styleSheet, 200, exchange, "text/css");
                 case "/script.js" -> response(script, 200, exchange, "text/javascript");
 
@@ -245,9 +258,33 @@ public class TeamBattleHttpSinkProvider implements SinkProvider {
                 }
             }
 
+            @Override
+            public void acceptAll(List<Event> batch) {
+                List<HttpEvent> httpEvents = new ArrayList<>(batch.size());
+                for (Event event : batch) {
+                    if (event instanceof HttpEvent httpEvent) {
+                        httpEvents.add(httpEvent);
+                    } else {
+                        System.out.println("Unexpected event " + event.getClass());
+                    }
+                }
+                synchronized(events) {
+                    events.addAll(httpEvents);
+                }
+            }
+
+            // The pages notice fewer events than they have seen, and clear their messages
+            @Override
+            public void rewind() {
+                synchronized(events) {
+                    events.clear();
+                }
+            }
+
             @Override
             public void close() {
                 server.stop(1);
+                executor.shutdown();
             }
         };
     }
@@ -136,6 +136,12 @@ public class TeamBattleReplaySourceProvider implements SourceProvider {
 
             @Override
             public void run() {}
+
+            // The recording is already in memory and every events() replays it from the start
+            @Override
+            public boolean rewind() {
+                return true;
+            }
         };
     }
 }
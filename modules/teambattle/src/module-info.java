@@ -1,17 +1,21 @@
 module teambattle {
 
+    exports tb.lichess;
     exports tb.source;
     exports tb.transformer;
 
     requires transitive tba.api;
     requires transitive chariot;
     requires transitive teambattle.api;
+    requires java.management;
+    requires jdk.jfr;
 
     provides tba.api.SourceProvider
         with tb.source.TeamBattleSourceProvider;
 
     provides tba.api.TransformerProvider
         with tb.transformer.ToTextEventProvider,
-             tb.transformer.ToHttpEventProvider;
+             tb.transformer.ToHttpEventProvider,
+             tb.transformer.CoalesceEventsProvider;
 
 }
@@ -0,0 +1,142 @@
+package tb.internal;
+
+import module java.base;
+import module teambattle.api;
+
+import tb.internal.InternalEvent.*;
+
+// Per-result cost of the result accumulators, against copy-on-write versions
+// which copy their whole map/set for every result (as they used to).
+//
+// A plain main rather than JMH, to not add a build dependency - warms up, then reports the best of a few runs.
+//
+//   java --enable-preview -p out/modules -m teambattle/tb.internal.AccumulatorBenchmark [players] [results]
+class AccumulatorBenchmark {
+
+    public static void main(String[] args) {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int results = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        List<GameResult> gameResults = gameResults(players, results, new Random(42));
+
+        record Case(String name, Supplier<List<Accumulator<GameResult, TeamBattleEvent>>> accumulators) {}
+        List<Case> cases = List.of(
+            new Case("copying",    () -> List.of(new CopyingStreak(Map.of()), new CopyingPhoenix(Map.of()), new CopyingUpset(Set.of()), new CopyingAvenge(Map.of()))),
+            new Case("persistent", () -> List.of(new StreakAccumulator(), new PhoenixAccumulator(), new UpsetAccumulator(), new AvengeAccumulator()))
+        );
+
+        System.out.println("%d players, %d results".formatted(players, results));
+        for (Case c : cases) {
+            long best = Long.MAX_VALUE;
+            int emitted = 0;
+            for (int run = 0; run < 8; run++) {
+                long start = System.nanoTime();
+                emitted = run(c.accumulators().get(), gameResults);
+                long elapsed = System.nanoTime() - start;
+                if (run >= 3) best = Math.min(best, elapsed); // first runs are warmup
+            }
+            System.out.println("%-12s %8.1f ns/result  (%d events)".formatted(c.name(), (double) best / gameResults.size(), emitted));
+        }
+    }
+
+    static int run(List<Accumulator<GameResult, TeamBattleEvent>> accumulators, List<GameResult> gameResults) {
+        List<Accumulator<GameResult, TeamBattleEvent>> current = new ArrayList<>(accumulators);
+        int emitted = 0;
+        for (GameResult result : gameResults) {
+            for (int i = 0; i < current.size(); i++) {
+                switch (current.get(i).accept(result)) {
+                    case Accumulator.Self(var next) -> current.set(i, next);
+                    case Accumulator.SelfAndValue(var next, _) -> { current.set(i, next); emitted++; }
+                    case Accumulator.Value(_) -> emitted++;
+                }
+            }
+        }
+        return emitted;
+    }
+
+    static List<GameResult> gameResults(int players, int results, Random random) {
+        List<GameResult> list = new ArrayList<>(results);
+        for (int i = 0; i < results; i++) {
+            String gameId = "game%06d".formatted(i);
+            String user = "user" + random.nextInt(players);
+            String opponent = "user" + random.nextInt(players);
+            list.add(switch (random.nextInt(5)) {
+                case 0, 1 -> new Win(gameId, user, opponent, random.nextInt(-400, 400), random.nextInt(20) == 0);
+                case 2, 3 -> new Loss(gameId, user, opponent);
+                default   -> new Draw(gameId, user, opponent);
+            });
+        }
+        return list;
+    }
+
+    // The copy-on-write versions
+
+    record CopyingStreak(Map<String, Integer> userIdWins) implements Accumulator<GameResult, TeamBattleEvent> {
+        public Result<GameResult, TeamBattleEvent> accept(GameResult result) {
+            if (result instanceof Win) {
+                var newMap = new HashMap<>(userIdWins);
+                int wins = 1 + userIdWins.getOrDefault(result.userId(), 0);
+                newMap.put(result.userId(), wins);
+                return wins >= 2
+                    ? new SelfAndValue<>(new CopyingStreak(Map.copyOf(newMap)), new TeamBattleEvent.Streak(result.userId(), wins))
+                    : new Self<>(new CopyingStreak(Map.copyOf(newMap)));
+            } else if (userIdWins.containsKey(result.userId())) {
+                var newMap = new HashMap<>(userIdWins);
+                newMap.remove(result.userId());
+                return new Self<>(new CopyingStreak(Map.copyOf(newMap)));
+            }
+            return new Self<>(this);
+        }
+    }
+
+    record CopyingPhoenix(Map<String, Integer> userLosses) implements Accumulator<GameResult, TeamBattleEvent> {
+        public Result<GameResult, TeamBattleEvent> accept(GameResult result) {
+            var newMap = new HashMap<>(userLosses);
+            if (result instanceof Loss) {
+                newMap.merge(result.userId(), 1, Integer::sum);
+                return new Self<>(new CopyingPhoenix(Map.copyOf(newMap)));
+            }
+            Integer losses = newMap.remove(result.userId());
+            return result instanceof Win && losses != null && losses >= 3
+                ? new SelfAndValue<>(new CopyingPhoenix(Map.copyOf(newMap)), new TeamBattleEvent.Phoenix(result.userId(), result.opponentId()))
+                : new Self<>(new CopyingPhoenix(Map.copyOf(newMap)));
+        }
+    }
+
+    record CopyingUpset(Set<String> userIdWins) implements Accumulator<GameResult, TeamBattleEvent> {
+        public Result<GameResult, TeamBattleEvent> accept(GameResult result) {
+            return switch (result) {
+                case Win win when ! userIdWins.contains(result.userId()) -> {
+                    var newSet = Stream.concat(userIdWins.stream(), Stream.of(result.userId())).collect(Collectors.toSet());
+                    yield win.ratingDiff() >= 200 && ! win.anyProvisional()
+                        ? new SelfAndValue<>(new CopyingUpset(newSet), new TeamBattleEvent.Upset(result.userId(), result.opponentId()))
+                        : new Self<>(new CopyingUpset(newSet));
+                }
+                case Win _ -> new Self<>(this);
+                case GameResult _ when userIdWins.contains(result.userId()) ->
+                    new Self<>(new CopyingUpset(userIdWins.stream().filter(Predicate.not(result.userId()::equals)).collect(Collectors.toSet())));
+                default -> new Self<>(this);
+            };
+        }
+    }
+
+    record CopyingAvenge(Map<String, Set<String>> opponentVictims) implements Accumulator<GameResult, TeamBattleEvent> {
+        public Result<GameResult, TeamBattleEvent> accept(GameResult result) {
+            return switch (result) {
+                case Win(_, String userId, String opponentId, _, _) when opponentVictims.containsKey(opponentId) -> {
+                    var newMap = new HashMap<>(opponentVictims);
+                    var victims = newMap.remove(opponentId);
+                    yield new SelfAndValue<>(new CopyingAvenge(newMap), new TeamBattleEvent.Avenge(userId, victims.stream().sorted().toList(), opponentId));
+                }
+                case Loss(_, String userId, String opponentId) when ! opponentVictims.getOrDefault(opponentId, Set.of()).contains(userId) -> {
+                    var newMap = new HashMap<>(opponentVictims);
+                    var victims = new HashSet<>(opponentVictims.getOrDefault(opponentId, Set.of()));
+                    victims.add(userId);
+                    newMap.put(opponentId, victims);
+                    yield new Self<>(new CopyingAvenge(newMap));
+                }
+                default -> new Self<>(this);
+            };
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package tb.internal;
+
+import module java.base;
+import module chariot;
+
+import chariot.model.Arena;
+
+// Whether a game looks like a game of the arena - finished, and with the same rated/casual, clock and variant.
+// Built once per arena update, so classifying a game compares against captured values
+// instead of digging through the arena for every game.
+public record ArenaMatch(Predicate<GameMeta> predicate) {
+
+    public static ArenaMatch of(Arena arena) {
+        var tourInfo = arena.tourInfo();
+        boolean rated = tourInfo.rated();
+        var clock = tourInfo.clock();
+        var variant = tourInfo.variant();
+        int started = Enums.Status.started.status();
+        return new ArenaMatch(game ->
+                game.status().status() > started
+                && game.rated() == rated
+                && game.timeControl() instanceof RealTime rt
+                && rt.clock().equals(clock)
+                && game.variant().equals(variant));
+    }
+
+    public boolean test(GameMeta game) {
+        return predicate.test(game);
+    }
+
+    // The color of the member in a game between two participants,
+    // or null if it isn't such a game (if both are members, the member playing white).
+    public static Enums.Color memberColor(IdSet everyone, IdSet members, int whiteId, int blackId) {
+        if (! everyone.contains(whiteId) || ! everyone.contains(blackId)) return null;
+        if (members.contains(whiteId)) return Enums.Color.white;
+        if (members.contains(blackId)) return Enums.Color.black;
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+package tb.internal;
+
+import module java.base;
+
+import chariot.model.Arena;
+
+// How often to poll Lichess, adapted to the phase of the tournament and to how much the participants change.
+//
+// - members: every 15s while people are joining, backing off to 2 minutes while nobody joins,
+//            at most 30s apart during the first minutes after start, when joins are frequent.
+// - arena:   every minute, or every 5 minutes while the start is more than an hour away.
+// - standings: every 20 minutes, 5 minutes in the last half hour and every minute in the last 10 minutes.
+//
+// Each endpoint has a budget, a minimum interval which the adapted intervals never go below.
+public final class Cadence {
+
+    public enum Endpoint {
+        arena(Duration.ofSeconds(30)),
+        members(Duration.ofSeconds(15)),
+        standings(Duration.ofMinutes(1));
+
+        final Duration budget;
+
+        Endpoint(Duration budget) {
+            this.budget = budget;
+        }
+
+        public Duration budget() {
+            return budget;
+        }
+    }
+
+    static final Duration busyStart = Duration.ofMinutes(10);
+    static final int maxBackoffSteps = 3; // 15s, 30s, 1m, 2m
+
+    private final Supplier<Arena> arena;
+    private int stablePolls;
+
+    public Cadence(Supplier<Arena> arena) {
+        this.arena = arena;
+    }
+
+    // Called with the outcome of each members poll
+    public void participantsChanged(boolean changed) {
+        stablePolls = changed ? 0 : stablePolls + 1;
+    }
+
+    public Duration interval(Endpoint endpoint) {
+        Arena arena = this.arena.get();
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime start = arena.tourInfo().startsAt();
+        ZonedDateTime end = start.plus(arena.duration());
+
+        Duration interval = switch (endpoint) {
+            case arena -> now.isBefore(start.minusHours(1))
+                ? Duration.ofMinutes(5)
+                : Duration.ofMinutes(1);
+
+            case members -> {
+                Duration backoff = Endpoint.members.budget.multipliedBy(1L << Math.min(stablePolls, maxBackoffSteps));
+                yield now.isAfter(start) && now.isBefore(start.plus(busyStart))
+                    ? min(backoff, Duration.ofSeconds(30))
+                    : backoff;
+            }
+
+            case standings -> {
+                Duration remaining = Duration.between(now, end);
+                if (remaining.compareTo(Duration.ofMinutes(10)) <= 0) yield Duration.ofMinutes(1);
+                if (remaining.compareTo(Duration.ofMinutes(30)) <= 0) yield Duration.ofMinutes(5);
+                // Don't sleep past the start of the last half hour
+                yield min(Duration.ofMinutes(20), remaining.minusMinutes(30));
+            }
+        };
+
+        return interval.compareTo(endpoint.budget) < 0 ? endpoint.budget : interval;
+    }
+
+    public Supplier<Duration> of(Endpoint endpoint) {
+        return () -> interval(endpoint);
+    }
+
+    static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,99 @@
+package tb.internal;
+
+import module java.base;
+import module chariot;
+
+import tb.internal.InternalEvent.*;
+
+// Per-game cost of telling whether a finished game is a game of a member, against the way it used to be done -
+// String sets, a Set.of(white, black) for containsAll and a record per player for every game.
+//
+// GameMeta only comes out of the client, so the games here are plain (white, black, winner) tuples,
+// and the arena match (rated, clock, variant) is left out - it compares the same captured values either way.
+// Most games on a stream aren't games of a member, which is where the allocations used to add up.
+//
+// A plain main rather than JMH, like AccumulatorBenchmark.
+//
+//   java --enable-preview -p out/modules -m teambattle/tb.internal.ClassifyBenchmark [players] [games]
+class ClassifyBenchmark {
+
+    record Game(String id, String white, String black, Enums.Color winner, int whiteRating, int blackRating) {}
+
+    public static void main(String[] args) {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        var random = new Random(42);
+        List<Game> list = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            // A fifth of the players on the streams aren't in the arena
+            String white = "user" + random.nextInt(players * 5 / 4);
+            String black;
+            do {
+                black = "user" + random.nextInt(players * 5 / 4);
+            } while (black.equals(white));
+            list.add(new Game("game%06d".formatted(i), white, black,
+                        switch (random.nextInt(3)) { case 0 -> Enums.Color.white; case 1 -> Enums.Color.black; default -> null; },
+                        random.nextInt(1000, 2500), random.nextInt(1000, 2500)));
+        }
+
+        // Every tenth participant is a member
+        Set<String> everyone = IntStream.range(0, players).mapToObj(i -> "user" + i).collect(Collectors.toSet());
+        Set<String> members = IntStream.range(0, players).filter(i -> i % 10 == 0).mapToObj(i -> "user" + i).collect(Collectors.toSet());
+        var userIds = new UserIds();
+        IdSet everyoneIds = userIds.intern(everyone);
+        IdSet memberIds = userIds.intern(members);
+
+        record Case(String name, Function<Game, GameResult> classify) {}
+        List<Case> cases = List.of(
+            new Case("sets+records", game -> before(everyone, members, game)),
+            new Case("idset",        game -> after(userIds, everyoneIds, memberIds, game))
+        );
+
+        System.out.println("%d players, %d games".formatted(players, games));
+        for (Case c : cases) {
+            long best = Long.MAX_VALUE;
+            int results = 0;
+            for (int run = 0; run < 8; run++) {
+                long start = System.nanoTime();
+                results = 0;
+                for (Game game : list) {
+                    if (c.classify().apply(game) != null) results++;
+                }
+                long elapsed = System.nanoTime() - start;
+                if (run >= 3) best = Math.min(best, elapsed); // first runs are warmup
+            }
+            System.out.println("%-14s %8.1f ns/game  (%d results)".formatted(c.name(), (double) best / list.size(), results));
+        }
+    }
+
+    static GameResult before(Set<String> everyone, Set<String> members, Game game) {
+        if (everyone.containsAll(Set.of(game.white(), game.black()))) {
+            boolean whiteIsMember = members.contains(game.white());
+            if (whiteIsMember || members.contains(game.black())) {
+                record IdColor(String id, Enums.Color color, int rating) {}
+                var white = new IdColor(game.white(), Enums.Color.white, game.whiteRating());
+                var black = new IdColor(game.black(), Enums.Color.black, game.blackRating());
+                var member = whiteIsMember ? white : black;
+                var opponent = whiteIsMember ? black : white;
+                return result(game, member.color(), member.id(), opponent.id(), opponent.rating() - member.rating());
+            }
+        }
+        return null;
+    }
+
+    static GameResult after(UserIds userIds, IdSet everyone, IdSet members, Game game) {
+        Enums.Color memberColor = ArenaMatch.memberColor(everyone, members, userIds.idOf(game.white()), userIds.idOf(game.black()));
+        if (memberColor == null) return null;
+        boolean white = memberColor == Enums.Color.white;
+        return result(game, memberColor, white ? game.white() : game.black(), white ? game.black() : game.white(),
+                white ? game.blackRating() - game.whiteRating() : game.whiteRating() - game.blackRating());
+    }
+
+    static GameResult result(Game game, Enums.Color memberColor, String member, String opponent, int ratingDiff) {
+        if (game.winner() == null) return new Draw(game.id(), member, opponent);
+        return game.winner() == memberColor
+            ? new Win(game.id(), member, opponent, ratingDiff, false)
+            : new Loss(game.id(), member, opponent);
+    }
+}
@@ -0,0 +1,74 @@
+package tb.internal;
+
+import module java.base;
+
+// Immutable set of dense ids (see UserIds), one bit per id.
+// Membership is a word lookup, and a set of 10000 ids takes ~1.2kB.
+public final class IdSet {
+
+    private static final IdSet empty = new IdSet(new BitSet());
+
+    private final BitSet bits; // never exposed, never modified after construction
+
+    private IdSet(BitSet bits) {
+        this.bits = bits;
+    }
+
+    public static IdSet empty() {
+        return empty;
+    }
+
+    public static IdSet of(IntStream ids) {
+        BitSet bits = new BitSet();
+        ids.forEach(bits::set);
+        return bits.isEmpty() ? empty : new IdSet(bits);
+    }
+
+    public static IdSet copyOf(BitSet bits) {
+        return bits.isEmpty() ? empty : new IdSet((BitSet) bits.clone());
+    }
+
+    // Unknown ids (negative) are never contained
+    public boolean contains(int id) {
+        return id >= 0 && bits.get(id);
+    }
+
+    public boolean containsAll(IdSet other) {
+        BitSet missing = (BitSet) other.bits.clone();
+        missing.andNot(bits);
+        return missing.isEmpty();
+    }
+
+    public IdSet union(IdSet other) {
+        if (containsAll(other)) return this;
+        BitSet updated = (BitSet) bits.clone();
+        updated.or(other.bits);
+        return new IdSet(updated);
+    }
+
+    public IdSet minus(IdSet other) {
+        if (! bits.intersects(other.bits)) return this;
+        BitSet updated = (BitSet) bits.clone();
+        updated.andNot(other.bits);
+        return updated.isEmpty() ? empty : new IdSet(updated);
+    }
+
+    public int size() { return bits.cardinality(); }
+    public boolean isEmpty() { return bits.isEmpty(); }
+    public IntStream stream() { return bits.stream(); }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof IdSet other && bits.equals(other.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return bits.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return bits.toString();
+    }
+}
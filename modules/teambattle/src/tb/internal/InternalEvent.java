@@ -1,6 +1,7 @@
 package tb.internal;
 
 import module java.base;
+import module chariot;
 
 import chariot.model.Arena;
 import teambattle.api.TeamBattleEvent;
@@ -14,7 +15,16 @@ public sealed interface InternalEvent {
     record PlayingMember(String userId, String gameId) {}
     record MemberPoll(Set<PlayingMember> playingMembers) implements InternalEvent {}
 
-    record ParticipantStatus(String userId, boolean withdraw) {}
+    // A game stream ended without being closed, and is to be reopened after a backoff
+    record StreamLost(String streamId, int attempt) implements InternalEvent {}
+    record Reconnect(String streamId, int attempt) implements InternalEvent {}
+    // A game stream was (re)opened off the loop thread, for the loop to start reading
+    record StreamOpened(String streamId, Stream<GameMeta> stream) implements InternalEvent {}
+    // Adding games to a stream, off the loop thread, failed - so they are not in it after all
+    record GamesNotAdded(String streamId, Set<String> gameIds, Set<String> userIds) implements InternalEvent {}
+
+    record ParticipantStatus(String userId, String name, boolean withdraw) {}
+    // The participants which are new or changed since the previous poll, see ParticipantTracker
     record Participants(Set<ParticipantStatus> members, Set<ParticipantStatus> allParticipants) implements InternalEvent {
         public Set<String> memberIds() { return members.stream().map(ParticipantStatus::userId).collect(Collectors.toSet()); }
         public Set<String> allParticipantIds() { return allParticipants.stream().map(ParticipantStatus::userId).collect(Collectors.toSet()); }
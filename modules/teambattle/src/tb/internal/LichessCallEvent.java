@@ -0,0 +1,25 @@
+package tb.internal;
+
+import module java.base;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import tb.lichess.RequestScheduler;
+
+@Name("tba.LichessCall")
+@Label("Lichess Call")
+@Description("Lichess API request made by the Tour, for streams until the response starts")
+@Category({"Team Battle Announcer", "Tour"})
+public final class LichessCallEvent extends jdk.jfr.Event {
+    @Label("Endpoint") public String endpoint;
+    @Label("Status") @Description("HTTP status of a failed call, 0 if it succeeded") public int status;
+    @Label("Queued") @Description("Time waiting for the request budget") @Timespan public long queued;
+
+    // See RequestScheduler
+    public static <T> T call(String endpoint, Supplier<T> call) {
+        return RequestScheduler.shared().call(endpoint, call);
+    }
+}
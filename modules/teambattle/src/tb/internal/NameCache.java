@@ -0,0 +1,137 @@
+package tb.internal;
+
+import module java.base;
+
+// Display names by user id.
+// Bounded (least recently used are evicted) and entries expire after a while,
+// and it is saved to a file between runs - so a restarted Tour knows the names from the start.
+//
+// The file is a line per user, "id name savedAtEpochMillis", and is
+// $TBA_NAME_CACHE if set, otherwise ~/.tba/names.txt
+public final class NameCache {
+
+    static final int defaultMaxEntries = 20_000;
+    static final Duration defaultTimeToLive = Duration.ofDays(7);
+
+    private static NameCache shared;
+
+    // The one all Tours in this process use, warmed from the file on first use
+    public static synchronized NameCache shared() {
+        if (shared == null) {
+            shared = new NameCache(defaultFile(), defaultMaxEntries, defaultTimeToLive);
+            shared.load();
+        }
+        return shared;
+    }
+
+    static Path defaultFile() {
+        return System.getenv("TBA_NAME_CACHE") instanceof String file
+            ? Path.of(file)
+            : Path.of(System.getProperty("user.home"), ".tba", "names.txt");
+    }
+
+    record Entry(String name, long storedAt) {}
+
+    private final Path file;
+    private final int maxEntries;
+    private final long timeToLiveMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries;
+
+    public NameCache(Path file, int maxEntries, Duration timeToLive) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > NameCache.this.maxEntries;
+            }
+        };
+    }
+
+    // The name, or null if not known (or too old)
+    public String get(String id) {
+        lock.lock();
+        try {
+            if (! (entries.get(id) instanceof Entry entry)) return null;
+            if (expired(entry, System.currentTimeMillis())) {
+                entries.remove(id);
+                return null;
+            }
+            return entry.name();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        return get(id) != null;
+    }
+
+    public void put(String id, String name) {
+        if (id == null || name == null) return;
+        lock.lock();
+        try {
+            entries.put(id, new Entry(name, System.currentTimeMillis()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean expired(Entry entry, long now) {
+        return now - entry.storedAt() > timeToLiveMillis;
+    }
+
+    public void load() {
+        if (! Files.exists(file)) return;
+        long now = System.currentTimeMillis();
+        try (Stream<String> lines = Files.lines(file)) {
+            List<String[]> parsed = lines.map(line -> line.split(" ")).filter(parts -> parts.length == 3).toList();
+            lock.lock();
+            try {
+                for (String[] parts : parsed) {
+                    var entry = new Entry(parts[1], Long.parseLong(parts[2]));
+                    if (! expired(entry, now)) entries.put(parts[0], entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException | NumberFormatException ex) {
+            System.err.println("Failed to load name cache %s - %s".formatted(file, ex.getMessage()));
+        }
+    }
+
+    // Writes to a temporary file which then replaces the old one, so a crash doesn't leave half a file
+    public void save() {
+        List<String> lines;
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            lines = entries.entrySet().stream()
+                .filter(e -> ! expired(e.getValue(), now))
+                .map(e -> "%s %s %d".formatted(e.getKey(), e.getValue().name(), e.getValue().storedAt()))
+                .toList();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "names", ".tmp");
+            Files.write(tmp, lines);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            System.err.println("Failed to save name cache %s - %s".formatted(file, ex.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package tb.internal;
+
+import module java.base;
+import module chariot;
+
+import tb.internal.InternalEvent.ParticipantStatus;
+import tb.internal.InternalEvent.Participants;
+
+// Running view of the participants of an arena.
+//
+// Lichess has no feed of changes to the arena results, so each poll still streams the full list,
+// but the list is compared entry by entry with the view instead of being collected into sets,
+// and only the new and changed participants are handed on - so the Tour loop
+// does work in proportion to the changes, not to the size of the arena.
+//
+// The view counts changes as handed on when they leave here, so if the Tour didn't get them
+// (a full queue) they would be lost - every resyncEvery update, and the update after a resync(),
+// hands on all participants, which the Tour merges like any other update.
+public final class ParticipantTracker {
+
+    private record Known(boolean member, boolean withdraw) {}
+
+    static final int resyncEvery = 10;
+
+    private final String teamId;
+    private final Map<String, Known> known = new HashMap<>(); // by username, as listed
+    private int updates;
+    private boolean resync;
+
+    public ParticipantTracker(String teamId) {
+        this.teamId = teamId;
+    }
+
+    // The next update hands on all participants, i.e the previous update didn't reach the Tour
+    public synchronized void resync() {
+        resync = true;
+    }
+
+    // The participants which are new or changed since the previous update (all of them the first time, and when resyncing)
+    public synchronized Participants update(Stream<ArenaResult> results) {
+        boolean all = resync || updates++ % resyncEvery == 0;
+        resync = false;
+        Set<ParticipantStatus> changedMembers = new HashSet<>();
+        Set<ParticipantStatus> changed = new HashSet<>();
+        results.forEach(result -> {
+            boolean member = result.team() instanceof Some(var team) && team.equals(teamId);
+            Known previous = known.get(result.username());
+            if (! all && previous != null && previous.member() == member && previous.withdraw() == result.withdraw()) return;
+
+            known.put(result.username(), new Known(member, result.withdraw()));
+            var status = new ParticipantStatus(result.username().toLowerCase(Locale.ROOT), result.username(), result.withdraw());
+            changed.add(status);
+            if (member) changedMembers.add(status);
+        });
+        return new Participants(changedMembers, changed);
+    }
+}
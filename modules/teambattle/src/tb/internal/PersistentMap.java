@@ -0,0 +1,253 @@
+package tb.internal;
+
+import module java.base;
+
+// Immutable hash map with structural sharing (a hash array mapped trie).
+// plus/minus return a new map sharing all but the O(log32 n) nodes on the path to the key,
+// so accumulators can keep their "new state per result" style without copying every entry.
+public final class PersistentMap<K, V> {
+
+    private static final PersistentMap<?, ?> empty = new PersistentMap<>(BitmapNode.empty, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) empty;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public V get(Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        return (V) root.find(0, hash(key), key, defaultValue);
+    }
+
+    public boolean containsKey(Object key) {
+        return root.find(0, hash(key), key, notFound) != notFound;
+    }
+
+    public PersistentMap<K, V> plus(K key, V value) {
+        var change = new Change();
+        Node updated = root.put(0, hash(key), key, value, change);
+        if (updated == root) return this;
+        return new PersistentMap<>(updated, change.sizeChanged ? size + 1 : size);
+    }
+
+    public PersistentMap<K, V> minus(Object key) {
+        var change = new Change();
+        Node updated = root.remove(0, hash(key), key, change);
+        if (updated == root) return this;
+        return updated == null ? empty() : new PersistentMap<>(updated, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((k, v) -> action.accept((K) k, (V) v));
+    }
+
+    public List<K> keys() {
+        List<K> keys = new ArrayList<>(size);
+        forEach((k, _) -> keys.add(k));
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        forEach((k, v) -> joiner.add(k + "=" + v));
+        return joiner.toString();
+    }
+
+    private static final Object notFound = new Object();
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Change {
+        boolean sizeChanged;
+    }
+
+    private sealed interface Node permits BitmapNode, CollisionNode {
+        Object find(int shift, int hash, Object key, Object notFound);
+        Node put(int shift, int hash, Object key, Object value, Change change);
+        // null when the node became empty
+        Node remove(int shift, int hash, Object key, Change change);
+        void forEach(BiConsumer<Object, Object> action);
+    }
+
+    // Up to 32 slots, present slots per bitmap.
+    // The array holds a key and value per slot, or null and a sub node.
+    private record BitmapNode(int bitmap, Object[] array) implements Node {
+
+        static final BitmapNode empty = new BitmapNode(0, new Object[0]);
+
+        static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 0x1f);
+        }
+
+        int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key, Object notFound) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return notFound;
+            int i = index(bit);
+            Object k = array[i];
+            if (k == null) return ((Node) array[i + 1]).find(shift + 5, hash, key, notFound);
+            return key.equals(k) ? array[i + 1] : notFound;
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, Change change) {
+            int bit = bit(hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, i);
+                copy[i] = key;
+                copy[i + 1] = value;
+                System.arraycopy(array, i, copy, i + 2, array.length - i);
+                change.sizeChanged = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node sub = ((Node) v).put(shift + 5, hash, key, value, change);
+                return sub == v ? this : new BitmapNode(bitmap, with(i + 1, sub));
+            }
+            if (key.equals(k)) {
+                return v == value ? this : new BitmapNode(bitmap, with(i + 1, value));
+            }
+
+            // Two keys in one slot, push them down a level
+            change.sizeChanged = true;
+            Object[] copy = with(i + 1, pair(shift + 5, PersistentMap.hash(k), k, v, hash, key, value));
+            copy[i] = null;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key, Change change) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return this;
+            int i = index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node sub = ((Node) v).remove(shift + 5, hash, key, change);
+                if (sub == v) return this;
+                if (sub != null) return new BitmapNode(bitmap, with(i + 1, sub));
+            } else if (! key.equals(k)) {
+                return this;
+            }
+            change.sizeChanged = true;
+
+            if (bitmap == bit) return null;
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 2, copy, i, array.length - i - 2);
+            return new BitmapNode(bitmap & ~bit, copy);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+        Object[] with(int index, Object value) {
+            Object[] copy = array.clone();
+            copy[index] = value;
+            return copy;
+        }
+
+        static Node pair(int shift, int hash1, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            if (hash1 == hash2) return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+            var change = new Change();
+            return empty
+                .put(shift, hash1, key1, value1, change)
+                .put(shift, hash2, key2, value2, change);
+        }
+    }
+
+    // Keys with the same hash, in a plain array of keys and values
+    private record CollisionNode(int hash, Object[] array) implements Node {
+
+        int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key, Object notFound) {
+            if (hash != this.hash) return notFound;
+            int i = indexOf(key);
+            return i == -1 ? notFound : array[i + 1];
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, Change change) {
+            if (hash != this.hash) {
+                return new BitmapNode(BitmapNode.bit(this.hash, shift), new Object[] { null, this })
+                    .put(shift, hash, key, value, change);
+            }
+            int i = indexOf(key);
+            if (i != -1) {
+                if (array[i + 1] == value) return this;
+                Object[] copy = array.clone();
+                copy[i + 1] = value;
+                return new CollisionNode(hash, copy);
+            }
+            change.sizeChanged = true;
+            Object[] copy = Arrays.copyOf(array, array.length + 2);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key, Change change) {
+            if (hash != this.hash) return this;
+            int i = indexOf(key);
+            if (i == -1) return this;
+            change.sizeChanged = true;
+            if (array.length == 2) return null;
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 2, copy, i, array.length - i - 2);
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+    }
+}
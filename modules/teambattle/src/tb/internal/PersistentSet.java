@@ -0,0 +1,32 @@
+package tb.internal;
+
+import module java.base;
+
+// Immutable set with structural sharing, see PersistentMap
+public record PersistentSet<E>(PersistentMap<E, Boolean> map) {
+
+    private static final PersistentSet<?> empty = new PersistentSet<>(PersistentMap.empty());
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentSet<E> empty() {
+        return (PersistentSet<E>) empty;
+    }
+
+    public int size() { return map.size(); }
+    public boolean isEmpty() { return map.isEmpty(); }
+    public boolean contains(Object element) { return map.containsKey(element); }
+
+    public PersistentSet<E> plus(E element) {
+        var updated = map.plus(element, Boolean.TRUE);
+        return updated == map ? this : new PersistentSet<>(updated);
+    }
+
+    public PersistentSet<E> minus(Object element) {
+        var updated = map.minus(element);
+        return updated == map ? this : new PersistentSet<>(updated);
+    }
+
+    public Stream<E> stream() {
+        return map.keys().stream();
+    }
+}
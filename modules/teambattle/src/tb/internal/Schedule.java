@@ -0,0 +1,61 @@
+package tb.internal;
+
+import module java.base;
+
+// Repeating actions due at absolute (monotonic) instants, kept in deadline order.
+// Owned by the arena poller of the ArenaHub, which sleeps until the next deadline.
+public final class Schedule {
+
+    private static final class Timer {
+        final Supplier<Duration> period;
+        final long seq;
+        final Runnable action;
+        long dueNanos;
+
+        Timer(long dueNanos, Supplier<Duration> period, long seq, Runnable action) {
+            this.dueNanos = dueNanos;
+            this.period = period;
+            this.seq = seq;
+            this.action = action;
+        }
+    }
+
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>(
+            Comparator.comparingLong((Timer timer) -> timer.dueNanos).thenComparingLong(timer -> timer.seq));
+    private long seq;
+
+    public Schedule every(Duration period, Runnable action) {
+        return every(period, period, action);
+    }
+
+    public Schedule every(Duration initialDelay, Duration period, Runnable action) {
+        return every(initialDelay, () -> period, action);
+    }
+
+    // The period is asked for each time the action has been handed out,
+    // so it can adapt to what is going on
+    public Schedule every(Duration initialDelay, Supplier<Duration> period, Runnable action) {
+        timers.add(new Timer(System.nanoTime() + initialDelay.toNanos(), period, seq++, action));
+        return this;
+    }
+
+    // 0 if an action is due, Long.MAX_VALUE if there are no actions
+    public long nanosUntilNext() {
+        Timer next = timers.peek();
+        return next == null ? Long.MAX_VALUE : Math.max(0, next.dueNanos - System.nanoTime());
+    }
+
+    // Hands the due actions to the consumer, in deadline order,
+    // and reschedules them one period later - skipping any periods which have already passed.
+    public void runDue(Consumer<Runnable> consumer) {
+        long now = System.nanoTime();
+        while (timers.peek() instanceof Timer timer && timer.dueNanos - now <= 0) {
+            timers.poll();
+            consumer.accept(timer.action);
+            long periodNanos = timer.period.get().toNanos();
+            timer.dueNanos += periodNanos;
+            if (timer.dueNanos - now <= 0) timer.dueNanos = now + periodNanos;
+            timers.add(timer);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package tb.internal;
+
+import module java.base;
+
+// The ids of the games seen so far - to let each game through once, even if several streams carry it.
+//
+// Lichess game ids are 8 characters of [0-9A-Za-z], which fit in 48 bits as a base 62 number,
+// so the ids are kept as longs in an open addressing table (linear probing, at most half full) -
+// 16 bytes per game at worst, instead of a String and a map entry per game.
+// Ids which don't look like that are kept as they are, on the side.
+public final class SeenGames {
+
+    private static final int idLength = 8;
+
+    private long[] table = new long[1024];
+    private int size;
+    private final Set<String> other = new HashSet<>();
+
+    // True if the game wasn't seen before
+    public synchronized boolean add(String gameId) {
+        long key = encode(gameId);
+        if (key < 0) return other.add(gameId);
+
+        // 0 marks an empty slot
+        long stored = key + 1;
+        int mask = table.length - 1;
+        for (int i = index(stored, mask); ; i = (i + 1) & mask) {
+            if (table[i] == stored) return false;
+            if (table[i] == 0) {
+                table[i] = stored;
+                if (++size * 2 > table.length) grow();
+                return true;
+            }
+        }
+    }
+
+    public synchronized boolean contains(String gameId) {
+        long key = encode(gameId);
+        if (key < 0) return other.contains(gameId);
+
+        long stored = key + 1;
+        int mask = table.length - 1;
+        for (int i = index(stored, mask); table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == stored) return true;
+        }
+        return false;
+    }
+
+    public synchronized int size() {
+        return size + other.size();
+    }
+
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+        for (long stored : old) {
+            if (stored == 0) continue;
+            int i = index(stored, mask);
+            while (table[i] != 0) i = (i + 1) & mask;
+            table[i] = stored;
+        }
+    }
+
+    private static int index(long stored, int mask) {
+        long hash = stored * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // The base 62 value of the id, or -1 if it isn't a Lichess game id
+    static long encode(String gameId) {
+        if (gameId.length() != idLength) return -1;
+        long value = 0;
+        for (int i = 0; i < idLength; i++) {
+            char c = gameId.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9')      digit = c - '0';
+            else if (c >= 'A' && c <= 'Z') digit = c - 'A' + 10;
+            else if (c >= 'a' && c <= 'z') digit = c - 'a' + 36;
+            else return -1;
+            value = value * 62 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,16 @@
+package tb.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("tba.TourLoop")
+@Label("Tour Loop")
+@Description("One iteration of the Tour event loop, handling one InternalEvent")
+@Category({"Team Battle Announcer", "Tour"})
+public final class TourLoopEvent extends jdk.jfr.Event {
+    @Label("Internal Event") public String eventType;
+    @Label("State") public String state;
+    @Label("Queue Depth") @Description("Number of internal events still waiting") public int queueDepth;
+}
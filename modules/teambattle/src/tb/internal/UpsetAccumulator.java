@@ -3,9 +3,9 @@ package tb.internal;
 import module java.base;
 import module teambattle.api;
 
-public record UpsetAccumulator(Set<String> userIdWins) implements Accumulator<InternalEvent.GameResult, TeamBattleEvent> {
+public record UpsetAccumulator(PersistentSet<String> userIdWins) implements Accumulator<InternalEvent.GameResult, TeamBattleEvent> {
 
-    public UpsetAccumulator() { this(Set.of()); }
+    public UpsetAccumulator() { this(PersistentSet.empty()); }
 
     @Override
     public Result<InternalEvent.GameResult, TeamBattleEvent> accept(InternalEvent.GameResult result) {
@@ -13,17 +13,14 @@ public record UpsetAccumulator(Set<String> userIdWins) implements Accumulator<In
             case InternalEvent.Win win -> switch(userIdWins().contains(result.userId())) {
                 case true -> new Self<>(this);
                 case false -> {
-                    var newSet = Stream.concat(userIdWins().stream(), Stream.of(result.userId()))
-                        .collect(Collectors.toSet());
+                    var next = new UpsetAccumulator(userIdWins.plus(result.userId()));
                     yield win.ratingDiff() >= 200 && !win.anyProvisional()
-                        ? new SelfAndValue<>(new UpsetAccumulator(newSet), new TeamBattleEvent.Upset(result.userId(), result.opponentId()))
-                        : new Self<>(new UpsetAccumulator(newSet));
+                        ? new SelfAndValue<>(next, new TeamBattleEvent.Upset(result.userId(), result.opponentId()))
+                        : new Self<>(next);
                 }
             };
             case InternalEvent.GameResult _ when userIdWins().contains(result.userId()) ->
-                new Self<>(new UpsetAccumulator(userIdWins.stream()
-                            .filter(Predicate.not(result.userId()::equals))
-                            .collect(Collectors.toSet())));
+                new Self<>(new UpsetAccumulator(userIdWins.minus(result.userId())));
             default -> new Self<>(this);
         };
     }
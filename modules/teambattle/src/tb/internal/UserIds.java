@@ -0,0 +1,47 @@
+package tb.internal;
+
+import module java.base;
+
+// Dense int ids for the (lowercase) user ids of one tournament,
+// handed out in order of first appearance - so the ids can index bitsets and arrays.
+//
+// Ids are assigned by the Tour loop, but looked up from the game stream threads too,
+// so the lookup is a lock-free map read - returning -1 for users not seen (yet).
+public final class UserIds {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private String[] userIds = new String[256];
+    private int size;
+
+    public synchronized int intern(String userId) {
+        Integer existing = ids.get(userId);
+        if (existing != null) return existing;
+
+        int id = size++;
+        if (id == userIds.length) userIds = Arrays.copyOf(userIds, id * 2);
+        userIds[id] = userId;
+        ids.put(userId, id);
+        return id;
+    }
+
+    public IdSet intern(Collection<String> userIds) {
+        return IdSet.of(userIds.stream().mapToInt(this::intern));
+    }
+
+    public int idOf(String userId) {
+        Integer id = ids.get(userId);
+        return id == null ? -1 : id;
+    }
+
+    public synchronized String userId(int id) {
+        return userIds[id];
+    }
+
+    public Stream<String> userIds(IdSet set) {
+        return set.stream().mapToObj(this::userId);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,140 @@
+package tb.lichess;
+
+import module java.base;
+import module java.management;
+
+import chariot.model.Entry;
+
+// Lookups of slowly changing things - arenas, teams and standings - which are asked for
+// by the UI, the config providers and by every Tour of an arena.
+//
+// A result is reused until it is older than the time to live of its endpoint,
+// and concurrent lookups of the same thing share one call to Lichess.
+// Some endpoints may hand out a stale result for a while,
+// while a single lookup in the background refreshes it.
+// (Lichess doesn't answer conditional requests for these endpoints, so "revalidation" is a plain lookup)
+//
+// Only results which are worth keeping are cached, i.e not failures -
+// those are handed to the callers sharing the call, and the next lookup tries again.
+//
+// There is a handful of arenas and teams per run, so nothing is evicted.
+// Published as an MXBean, tba:type=Lichess,name=cache
+public final class LichessCache implements LichessCacheMXBean {
+
+    record Policy(Duration ttl, Duration stale) {}
+
+    static final Map<String, Policy> policies = Map.of(
+            "tournaments/arenaById",              new Policy(Duration.ofSeconds(10), Duration.ZERO),
+            "tournaments/teamBattleResultsById",  new Policy(Duration.ofSeconds(10), Duration.ZERO),
+            "teams/byTeamId",                     new Policy(Duration.ofMinutes(10), Duration.ofHours(1)));
+
+    private static final LichessCache shared = new LichessCache();
+
+    public static LichessCache shared() {
+        return shared;
+    }
+
+    private record Key(String endpoint, String key) {}
+
+    private static final class Slot {
+        Object value;
+        long fetchedAt;
+        CompletableFuture<Object> inFlight;
+    }
+
+    private final Map<Key, Slot> slots = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private LichessCache() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("tba:type=Lichess,name=cache"));
+        } catch (JMException ex) {
+            System.err.println("Failed to register metrics MXBean for cache - %s".formatted(ex.getMessage()));
+        }
+    }
+
+    // Keeps successful lookups, i.e Entry
+    public <T> T get(String endpoint, String key, Supplier<T> fetch) {
+        return get(endpoint, key, fetch, result -> result instanceof Entry<?>);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String endpoint, String key, Supplier<T> fetch, Predicate<? super T> keep) {
+        if (! (policies.get(endpoint) instanceof Policy policy)) return fetch.get();
+
+        Slot slot = slots.computeIfAbsent(new Key(endpoint, key), _ -> new Slot());
+        CompletableFuture<Object> flight;
+        boolean first = false;
+        synchronized (slot) {
+            if (slot.value != null) {
+                long age = System.nanoTime() - slot.fetchedAt;
+                if (age < policy.ttl().toNanos()) {
+                    hits.increment();
+                    return (T) slot.value;
+                }
+                if (age < policy.ttl().plus(policy.stale()).toNanos()) {
+                    if (slot.inFlight == null) {
+                        var refresh = slot.inFlight = new CompletableFuture<>();
+                        Thread.ofVirtual().name("lichess-revalidate").start(() -> {
+                            try {
+                                fetch(slot, refresh, fetch, keep);
+                            } catch (RuntimeException ex) {
+                                System.err.println("Refreshing %s %s failed - %s".formatted(endpoint, key, ex.getMessage()));
+                            }
+                        });
+                    }
+                    staleHits.increment();
+                    return (T) slot.value;
+                }
+            }
+            if (slot.inFlight == null) {
+                slot.inFlight = new CompletableFuture<>();
+                first = true;
+                misses.increment();
+            } else {
+                coalesced.increment();
+            }
+            flight = slot.inFlight;
+        }
+
+        if (first) return fetch(slot, flight, fetch, keep);
+
+        try {
+            return (T) flight.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
+
+    // Makes the call and hands the result to the callers waiting for it
+    private static <T> T fetch(Slot slot, CompletableFuture<Object> flight, Supplier<T> fetch, Predicate<? super T> keep) {
+        T result;
+        try {
+            result = fetch.get();
+        } catch (RuntimeException ex) {
+            synchronized (slot) {
+                slot.inFlight = null;
+            }
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+        synchronized (slot) {
+            if (keep.test(result)) {
+                slot.value = result;
+                slot.fetchedAt = System.nanoTime();
+            }
+            slot.inFlight = null;
+        }
+        flight.complete(result);
+        return result;
+    }
+
+    @Override public long getHits() { return hits.sum(); }
+    @Override public long getStaleHits() { return staleHits.sum(); }
+    @Override public long getMisses() { return misses.sum(); }
+    @Override public long getCoalesced() { return coalesced.sum(); }
+    @Override public int getEntries() { return slots.size(); }
+}
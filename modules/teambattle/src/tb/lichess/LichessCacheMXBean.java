@@ -0,0 +1,9 @@
+package tb.lichess;
+
+public interface LichessCacheMXBean {
+    int getEntries();
+    long getHits();
+    long getStaleHits();
+    long getMisses();
+    long getCoalesced();
+}
@@ -0,0 +1,12 @@
+package tb.lichess;
+
+public interface RequestClassMXBean {
+    String getName();
+    int getQueueDepth();
+    long getRequests();
+    long getRateLimited();
+    long getWaitMeanMicros();
+    long getWaitP50Micros();
+    long getWaitP99Micros();
+    long getWaitMaxMicros();
+}
@@ -0,0 +1,204 @@
+package tb.lichess;
+
+import module java.base;
+import module java.management;
+
+import chariot.model.Fail;
+import tba.api.Histogram;
+import tb.internal.LichessCallEvent;
+
+// All Lichess API requests of the announcer go through here, so they share one budget.
+//
+// Requests are grouped into classes by the first part of their endpoint name ("users/byIds" -> users),
+// and each class has a token bucket - a rate and a burst. The classes don't wait on each other.
+// Within a class, waiting requests are let through by priority, then in arrival order -
+// so fetching the standings goes before refreshing the arena. The priority means nothing across classes.
+// A 429 (Too Many Requests) pauses all classes for a minute, as Lichess asks of API clients -
+// except for interactive lookups, which are few and would otherwise freeze the UI.
+// (chariot doesn't hand out the Retry-After header, so the minute is assumed)
+//
+// Each class is published as an MXBean, tba:type=Lichess,name=...
+public final class RequestScheduler {
+
+    // In order of precedence, within a request class
+    public enum Priority { interactive, realtime, normal, background }
+
+    record Budget(double perSecond, int burst) {}
+
+    static final Duration rateLimitedPause = Duration.ofMinutes(1);
+
+    static final Map<String, Budget> budgets = Map.of(
+            "tournaments", new Budget(0.5, 3),
+            "users",       new Budget(2, 4),
+            "games",       new Budget(2, 4),
+            "teams",       new Budget(1, 3));
+    static final Budget defaultBudget = new Budget(1, 2);
+
+    // Endpoints not listed are interactive, i.e a user waiting for an answer
+    static final Map<String, Priority> priorities = Map.of(
+            "users/byId",                       Priority.realtime,
+            "users/byIds",                      Priority.realtime,
+            "users/statusByIds",                Priority.realtime,
+            "games/addGameIdsToStream",         Priority.realtime,
+            "games/gameInfosByGameIds",         Priority.realtime,
+            "games/gameInfosByUserIds",         Priority.realtime,
+            "tournaments/resultsByArenaId",     Priority.normal,
+            "tournaments/arenaById",            Priority.background,
+            "tournaments/teamBattleResultsById", Priority.background);
+
+    private static final RequestScheduler shared = new RequestScheduler();
+
+    public static RequestScheduler shared() {
+        return shared;
+    }
+
+    private final Map<String, RequestClass> classes = new ConcurrentHashMap<>();
+    private volatile long pausedUntilNanos = System.nanoTime();
+
+    private RequestScheduler() {}
+
+    public static Priority priorityOf(String endpoint) {
+        return priorities.getOrDefault(endpoint, Priority.interactive);
+    }
+
+    public <T> T call(String endpoint, Supplier<T> call) {
+        return call(endpoint, priorityOf(endpoint), call);
+    }
+
+    // For lookups someone is waiting on, i.e in the UI and config
+    public <T> T interactive(String endpoint, Supplier<T> call) {
+        return call(endpoint, Priority.interactive, call);
+    }
+
+    // Waits for its turn and a token, then makes the call.
+    // If interrupted while waiting, the call is made right away - with the interrupt status set.
+    public <T> T call(String endpoint, Priority priority, Supplier<T> call) {
+        RequestClass requestClass = classes.computeIfAbsent(endpoint.split("/", 2)[0], this::register);
+
+        long queued = 0;
+        try {
+            queued = requestClass.acquire(priority);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+
+        var event = new LichessCallEvent();
+        event.begin();
+        T result = null;
+        try {
+            result = call.get();
+            return result;
+        } finally {
+            if (result instanceof Fail<?> fail && fail.status() == 429) {
+                requestClass.rateLimited.increment();
+                pausedUntilNanos = System.nanoTime() + rateLimitedPause.toNanos();
+                System.err.println("Rate limited by Lichess (%s), pausing requests for %s".formatted(endpoint, rateLimitedPause));
+            }
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint;
+                event.status = result instanceof Fail<?> fail ? fail.status() : 0;
+                event.queued = queued;
+                event.commit();
+            }
+        }
+    }
+
+    public List<RequestClassMXBean> classes() {
+        return classes.values().stream()
+            .sorted(Comparator.comparing(RequestClass::getName))
+            .<RequestClassMXBean>map(Function.identity())
+            .toList();
+    }
+
+    private RequestClass register(String name) {
+        var requestClass = new RequestClass(name, budgets.getOrDefault(name, defaultBudget));
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(requestClass,
+                    new ObjectName("tba:type=Lichess,name=%s".formatted(ObjectName.quote(name))));
+        } catch (JMException ex) {
+            System.err.println("Failed to register metrics MXBean for %s - %s".formatted(name, ex.getMessage()));
+        }
+        return requestClass;
+    }
+
+    private final class RequestClass implements RequestClassMXBean {
+
+        private record Ticket(Priority priority, long seq) {}
+
+        private final String name;
+        private final long nanosPerToken;
+        private final int burst;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(
+                Comparator.comparing(Ticket::priority).thenComparingLong(Ticket::seq));
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final Histogram waited = new Histogram();
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long seq;
+
+        RequestClass(String name, Budget budget) {
+            this.name = name;
+            this.nanosPerToken = (long) (1_000_000_000L / budget.perSecond());
+            this.burst = budget.burst();
+            this.tokens = budget.burst();
+        }
+
+        // Returns the nanos spent waiting
+        long acquire(Priority priority) throws InterruptedException {
+            long begin = System.nanoTime();
+            lock.lockInterruptibly();
+            Ticket ticket = new Ticket(priority, seq++);
+            waiting.add(ticket);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    tokens = Math.min(burst, tokens + (double) (now - refilledAt) / nanosPerToken);
+                    refilledAt = now;
+
+                    // Someone is waiting on an interactive lookup (maybe the UI thread) - it only waits for a token
+                    long paused = priority == Priority.interactive ? 0 : pausedUntilNanos - now;
+                    boolean first = waiting.peek() == ticket;
+                    if (first && paused <= 0 && tokens >= 1) {
+                        tokens -= 1;
+                        break;
+                    }
+
+                    if (! first) {
+                        changed.await();
+                    } else {
+                        changed.awaitNanos(Math.max(1, Math.max(paused, (long) ((1 - tokens) * nanosPerToken))));
+                    }
+                }
+            } finally {
+                waiting.remove(ticket);
+                changed.signalAll();
+                lock.unlock();
+            }
+            long waitedNanos = System.nanoTime() - begin;
+            waited.record(waitedNanos);
+            requests.increment();
+            return waitedNanos;
+        }
+
+        @Override public String getName() { return name; }
+        @Override public long getRequests() { return requests.sum(); }
+        @Override public long getRateLimited() { return rateLimited.sum(); }
+        @Override public long getWaitMeanMicros() { return waited.mean() / 1000; }
+        @Override public long getWaitP50Micros() { return waited.percentile(0.5) / 1000; }
+        @Override public long getWaitP99Micros() { return waited.percentile(0.99) / 1000; }
+        @Override public long getWaitMaxMicros() { return waited.max() / 1000; }
+
+        @Override
+        public int getQueueDepth() {
+            lock.lock();
+            try {
+                return waiting.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package tb.source;
+
+import module java.base;
+import module tba.api;
+import module chariot;
+
+import chariot.model.Arena;
+import tb.internal.*;
+import tb.lichess.LichessCache;
+import tb.internal.InternalEvent.*;
+
+// What the Tours of one arena share - there is one Tour per monitored team,
+// but the arena, its results and its standings are fetched once for all of them,
+// and the games of any of their streams are handed to all of them.
+//
+// The hub polls the arena on one schedule, whatever the number of Tours - on a thread of its own,
+// started by the first Tour to subscribe and stopped by the last one to leave, or when the arena has ended.
+// The results are handed to every Tour's queue.
+final class ArenaHub {
+
+    record Subscriber(Tour tour, Queue<InternalEvent> queue) {}
+
+    private final String arenaId;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // The latest arena, as fetched by the poller
+    private volatile Arena arena;
+    private final Cadence cadence = new Cadence(() -> arena);
+    // Number of participants listed at the previous members poll
+    private int listed;
+    private Thread poller;
+    private final SeenGames finishedGames = new SeenGames();
+    // Held weakly, so a Tour which is created but never run doesn't keep the hub around
+    private final Set<Tour> tours = Collections.newSetFromMap(new WeakHashMap<>());
+
+    // The Small stream (of all participants) of one Tour serves all Tours.
+    // The other Tours keep a Small monitor with the stream id sharedSmall.
+    private Tour smallOwner;
+    private Set<String> smallParticipants = Set.of();
+
+    ArenaHub(String arenaId) {
+        this.arenaId = arenaId;
+    }
+
+    static final String sharedSmall = "small-shared";
+
+    synchronized void attach(Tour tour) { tours.add(tour); }
+    synchronized void detach(Tour tour) { tours.remove(tour); }
+    synchronized boolean unused() { return tours.isEmpty(); }
+
+    // The first subscriber starts the polling, with its client and on a thread of its io Execution
+    void subscribe(Tour tour, Queue<InternalEvent> queue, Client client, Arena arena, Execution io) {
+        synchronized (this) {
+            subscribers.add(new Subscriber(tour, queue));
+            if (poller != null) return;
+            this.arena = arena;
+            Schedule schedule = schedule(client);
+            poller = io.threadFactory().newThread(() -> poll(schedule));
+            poller.setName("arena-%s-poll".formatted(arenaId));
+            poller.start();
+        }
+    }
+
+    void unsubscribe(Tour tour) {
+        synchronized (this) {
+            subscribers.removeIf(subscriber -> subscriber.tour() == tour);
+            if (subscribers.isEmpty() && poller != null) {
+                poller.interrupt();
+                poller = null;
+            }
+        }
+        releaseSmall(tour);
+    }
+
+    // The standings are polled once the arena has started
+    private Schedule schedule(Client client) {
+        Duration untilStart = Duration.between(ZonedDateTime.now(), arena.tourInfo().startsAt());
+        return new Schedule()
+            .every(cadence.interval(Cadence.Endpoint.arena), cadence.of(Cadence.Endpoint.arena), arenaUpdate(client))
+            .every(Duration.ofSeconds(1), cadence.of(Cadence.Endpoint.members), members(client))
+            .every(untilStart.isNegative() ? Duration.ofSeconds(1) : untilStart.plusSeconds(1),
+                    cadence.of(Cadence.Endpoint.standings), standings(client));
+    }
+
+    private void poll(Schedule schedule) {
+        while (! Thread.currentThread().isInterrupted()
+                && ZonedDateTime.now().isBefore(arena.tourInfo().startsAt().plus(arena.duration()))) {
+            try {
+                long nanosUntilNext = schedule.nanosUntilNext();
+                if (nanosUntilNext > 0) {
+                    TimeUnit.NANOSECONDS.sleep(nanosUntilNext);
+                } else {
+                    schedule.runDue(Runnable::run);
+                }
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // The Tour stops streaming the games of the participants (it ended, or grew Large).
+    // The Tours relying on its stream are asked to reconnect - the first one to claim the stream opens it.
+    void releaseSmall(Tour tour) {
+        synchronized (this) {
+            if (smallOwner != tour) return;
+            smallOwner = null;
+            smallParticipants = Set.of();
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.tour() != tour) {
+                subscriber.queue().offer(new Reconnect(sharedSmall, 0));
+            }
+        }
+    }
+
+    // Whether the Tour should open a stream of games of the participants,
+    // or if another Tour already streams the games of the same participants
+    synchronized boolean claimSmall(Tour tour, Set<String> participants) {
+        if (smallOwner != null && smallOwner != tour && smallParticipants.equals(participants)) return false;
+        smallOwner = tour;
+        smallParticipants = participants;
+        return true;
+    }
+
+    // Hands the game to every Tour - a finished game only once, even if several streams carry it
+    void publish(GameMeta gameMeta) {
+        if (gameMeta.status().status() > Enums.Status.started.status() && ! finishedGames.add(gameMeta.id())) return;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.tour().resultOfMember(gameMeta).ifPresent(subscriber.queue()::offer);
+        }
+    }
+
+    private void offerAll(InternalEvent event) {
+        subscribers.forEach(subscriber -> subscriber.queue().offer(event));
+    }
+
+    private Runnable standings(Client client) {
+        return () -> {
+            Arena arena = this.arena;
+            // No standings (i.e a failed lookup) isn't worth caching
+            offerAll(new Standings(LichessCache.shared().get("tournaments/teamBattleResultsById", arenaId,
+                            () -> LichessCallEvent.call("tournaments/teamBattleResultsById",
+                                () -> client.tournaments().teamBattleResultsById(arenaId)).stream()
+                            .map(ts -> new InternalEvent.TeamPoints(arena.teamBattle()
+                                    .get().teams().stream()
+                                    .filter(teamInfo -> teamInfo.id().equals(ts.teamId()))
+                                    .findFirst()
+                                    .map(Arena.TeamInfo::name)
+                                    .orElse(ts.teamId()),
+                                    ts.score())
+                                )
+                            .toList(),
+                            standings -> ! standings.isEmpty())));
+        };
+    }
+
+    private Runnable arenaUpdate(Client client) {
+        return () -> {
+            LichessCache.shared().get("tournaments/arenaById", arenaId,
+                    () -> LichessCallEvent.call("tournaments/arenaById", () -> client.tournaments().arenaById(arenaId)))
+                .ifPresent(updatedArena -> {
+                    arena = updatedArena;
+                    offerAll(new ArenaUpdate(updatedArena));
+                });
+        };
+    }
+
+    // Each Tour gets the participants which are new or changed for it, see ParticipantTracker
+    private Runnable members(Client client) {
+        return () -> {
+            switch (LichessCallEvent.call("tournaments/resultsByArenaId",
+                        () -> client.tournaments().resultsByArenaId(arenaId))) {
+                case Entries(var stream) -> {
+                    List<ArenaResult> results = stream.toList();
+                    // Polled less often while nobody joins
+                    cadence.participantsChanged(results.size() > listed);
+                    listed = results.size();
+                    for (Subscriber subscriber : subscribers) {
+                        // Also when nothing changed, to let the loop know the participants are stable
+                        ParticipantTracker tracker = subscriber.tour().participantTracker;
+                        if (! subscriber.queue().offer(tracker.update(results.stream()))) {
+                            tracker.resync();
+                        }
+                    }
+                }
+                case Fail(int status, var err) -> System.err.println("Arena results lookup failed - %d %s".formatted(status, err));
+            };
+        };
+    }
+}
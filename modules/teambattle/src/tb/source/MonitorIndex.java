@@ -0,0 +1,142 @@
+package tb.source;
+
+import module java.base;
+import module chariot;
+
+import tb.internal.IdSet;
+
+// Bookkeeping of the Large results monitor, owned by the Tour loop thread.
+//
+// Knows which stream each monitored game is in, which games of each stream are still open,
+// and which members currently have a monitored game - so that a game result
+// releases its member and expires its stream in O(1), without scanning all streams and members.
+final class MonitorIndex {
+
+    private static final class Entry {
+        final String streamId;
+        final Set<String> open = new HashSet<>();
+        Stream<GameMeta> byGameIds;
+        int games;
+
+        Entry(Stream<GameMeta> byGameIds, String streamId) {
+            this.byGameIds = byGameIds;
+            this.streamId = streamId;
+        }
+    }
+
+    private final int maxGamesPerStream;
+    private final StreamReaders readers;
+    private final Map<String, Entry> streamByGameId = new HashMap<>();
+    private final Map<String, Entry> streamById = new HashMap<>();
+    private final SequencedSet<Entry> streams = new LinkedHashSet<>();
+    private final BitSet monitored = new BitSet();
+
+    MonitorIndex(int maxGamesPerStream, StreamReaders readers) {
+        this.maxGamesPerStream = maxGamesPerStream;
+        this.readers = readers;
+    }
+
+    // Number of games which can still be added to the latest stream
+    int room() {
+        return streams.isEmpty() ? 0 : maxGamesPerStream - streams.getLast().games;
+    }
+
+    String latestStreamId() {
+        return streams.getLast().streamId;
+    }
+
+    int latestStreamGames() {
+        return streams.getLast().games;
+    }
+
+    void addToLatestStream(Collection<String> gameIds) {
+        add(streams.getLast(), gameIds);
+    }
+
+    void addStream(Stream<GameMeta> byGameIds, String streamId, Collection<String> gameIds) {
+        Entry entry = new Entry(byGameIds, streamId);
+        streams.add(entry);
+        streamById.put(streamId, entry);
+        add(entry, gameIds);
+    }
+
+    private void add(Entry entry, Collection<String> gameIds) {
+        for (String gameId : gameIds) {
+            if (streamByGameId.put(gameId, entry) instanceof Entry previous && previous != entry) {
+                // Moved from a stream which failed to pick it up, it won't be finished there
+                finished(previous, gameId);
+            }
+            entry.games++;
+            entry.open.add(gameId);
+        }
+    }
+
+    // Adding the games to their stream failed, they won't be reported there
+    void notAdded(Collection<String> gameIds) {
+        for (String gameId : gameIds) {
+            if (streamByGameId.remove(gameId) instanceof Entry entry) {
+                entry.games--;
+                finished(entry, gameId);
+            }
+        }
+    }
+
+    void finished(String gameId) {
+        if (streamByGameId.remove(gameId) instanceof Entry entry) {
+            finished(entry, gameId);
+        }
+    }
+
+    // A full stream without open games won't deliver anything more, so it is closed
+    private void finished(Entry entry, String gameId) {
+        entry.open.remove(gameId);
+        if (entry.open.isEmpty() && entry.games >= maxGamesPerStream) {
+            retire(entry);
+        }
+    }
+
+    private void retire(Entry entry) {
+        streams.remove(entry);
+        streamById.remove(entry.streamId);
+        readers.close(entry.byGameIds);
+    }
+
+    boolean hasStream(String streamId) {
+        return streamById.containsKey(streamId);
+    }
+
+    // The games of the stream which haven't been reported as finished yet
+    Set<String> openGameIds(String streamId) {
+        return streamById.get(streamId) instanceof Entry entry ? Set.copyOf(entry.open) : Set.of();
+    }
+
+    // A lost stream without open games isn't worth reopening,
+    // new games go to a new stream instead
+    void retire(String streamId) {
+        if (streamById.get(streamId) instanceof Entry entry) {
+            retire(entry);
+        }
+    }
+
+    void reopened(String streamId, Stream<GameMeta> byGameIds) {
+        if (streamById.get(streamId) instanceof Entry entry) {
+            entry.byGameIds = byGameIds;
+        }
+    }
+
+    void monitor(int memberId) {
+        monitored.set(memberId);
+    }
+
+    void release(int memberId) {
+        if (memberId >= 0) monitored.clear(memberId);
+    }
+
+    boolean isMonitored(int memberId) {
+        return memberId >= 0 && monitored.get(memberId);
+    }
+
+    IdSet monitored() {
+        return IdSet.copyOf(monitored);
+    }
+}
@@ -0,0 +1,137 @@
+package tb.source;
+
+import module java.base;
+import module teambattle.api;
+
+import tb.internal.*;
+import tb.internal.InternalEvent.GameResult;
+
+// The per-user result accumulators of a Tour, split into shards by key.
+//
+// Each accumulator is keyed - by the member (Streak, Upset, Phoenix) or by the opponent (Avenge) -
+// and a result is handed to the shard of its key, once per accumulator.
+// A shard handles its results in arrival order, so the results of a member (or opponent)
+// are accumulated in order, while different members are accumulated in parallel.
+// Arena-wide accumulators (FirstBlood) stay with the Tour loop.
+//
+// With a single shard the accumulators run on the calling (Tour loop) thread, as before sharding.
+// Otherwise each shard has its own thread, in a scope owned by the Tour loop thread.
+//
+// Only these accumulators are sharded. FirstBlood, deduplication, name rendering and the
+// Tour loop itself still run on the loop thread, so sharding moves the per-result accumulator work
+// (see AccumulatorBenchmark) off the loop, it doesn't parallelize the Tour.
+// The default is a single shard - sharding pays off only when results arrive faster than
+// the accumulators handle them on one thread, measure with ShardBenchmark before turning it on.
+final class ResultShards implements AutoCloseable {
+
+    record Keyed(Function<GameResult, String> key, Supplier<Accumulator<GameResult, TeamBattleEvent>> accumulator) {}
+
+    static final List<Keyed> keyed = List.of(
+            new Keyed(GameResult::userId, StreakAccumulator::new),
+            new Keyed(GameResult::userId, UpsetAccumulator::new),
+            new Keyed(GameResult::userId, PhoenixAccumulator::new),
+            new Keyed(GameResult::opponentId, AvengeAccumulator::new));
+
+    // Set environment variable TBA_TOUR_SHARDS to the number of shards, for very large arenas
+    static int configuredShards() {
+        try {
+            return System.getenv("TBA_TOUR_SHARDS") instanceof String shards
+                ? Math.max(1, Integer.parseInt(shards.strip()))
+                : 1;
+        } catch (NumberFormatException ex) {
+            System.out.println("Ignoring TBA_TOUR_SHARDS - " + ex.getMessage());
+            return 1;
+        }
+    }
+
+    // reached - counted down when a shard gets to it, see drain()
+    private record Work(GameResult result, int accumulator, CountDownLatch reached) {}
+    private static final Work end = new Work(null, -1, null);
+
+    private final class Shard {
+        final List<Accumulator<GameResult, TeamBattleEvent>> accumulators =
+            new ArrayList<>(keyed.stream().map(k -> k.accumulator().get()).toList());
+        final BlockingQueue<Work> queue = new ArrayBlockingQueue<>(4096);
+
+        void accept(GameResult result, int index) {
+            switch (accumulators.get(index).accept(result)) {
+                case Accumulator.Self(var next) -> accumulators.set(index, next);
+                case Accumulator.SelfAndValue(var next, var value) -> {
+                    accumulators.set(index, next);
+                    emit.accept(value);
+                }
+                case Accumulator.Value(var value) -> emit.accept(value);
+            }
+        }
+
+        void run() throws InterruptedException {
+            for (Work work = queue.take(); work != end; work = queue.take()) {
+                if (work.reached() != null) {
+                    work.reached().countDown();
+                } else {
+                    accept(work.result(), work.accumulator());
+                }
+            }
+        }
+    }
+
+    private final Shard[] shards;
+    private final Consumer<TeamBattleEvent> emit;
+    private final StructuredTaskScope<Object, Void> scope;
+
+    // emit - receives the values of the accumulators, from the shard threads
+    ResultShards(int count, Consumer<TeamBattleEvent> emit) {
+        this.emit = emit;
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) shards[i] = new Shard();
+
+        if (count == 1) {
+            scope = null;
+        } else {
+            scope = StructuredTaskScope.open(StructuredTaskScope.Joiner.awaitAll(),
+                    cf -> cf.withThreadFactory(Thread.ofPlatform().name("tour-shard-", 0).factory()).withName("tour-shards"));
+            for (Shard shard : shards) {
+                scope.fork(() -> { shard.run(); return null; });
+            }
+        }
+    }
+
+    // Called by the Tour loop thread
+    void accept(GameResult result) throws InterruptedException {
+        for (int i = 0; i < keyed.size(); i++) {
+            if (scope == null) {
+                shards[0].accept(result, i);
+            } else {
+                String key = keyed.get(i).key().apply(result);
+                shards[Math.floorMod(key.hashCode(), shards.length)].queue.put(new Work(result, i, null));
+            }
+        }
+    }
+
+    // Called by the Tour loop thread.
+    // Waits until the results already handed to the shards are accumulated,
+    // so their values are emitted before anything the loop emits after this (i.e TourEnd).
+    void drain() throws InterruptedException {
+        if (scope == null) return;
+        var reached = new CountDownLatch(shards.length);
+        for (Shard shard : shards) shard.queue.put(new Work(null, -1, reached));
+        reached.await();
+    }
+
+    // Called by the Tour loop thread, when the Tour ends.
+    // Results already handed to the shards are accumulated first.
+    @Override
+    public void close() {
+        if (scope == null) return;
+        boolean interrupted = Thread.interrupted();
+        try {
+            for (Shard shard : shards) shard.queue.put(end);
+            scope.join();
+        } catch (InterruptedException _) {
+            interrupted = true;
+        } finally {
+            scope.close();
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package tb.source;
+
+import module java.base;
+import module teambattle.api;
+
+import tb.internal.InternalEvent.*;
+
+// Results per second through ResultShards, by number of shards -
+// the per-user accumulators only, as that is all which is sharded.
+//
+// A plain main rather than JMH, like AccumulatorBenchmark.
+//
+//   java --enable-preview -p out/modules -m teambattle/tb.source.ShardBenchmark [players] [results] [shards...]
+class ShardBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int results = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        List<Integer> counts = args.length > 2
+            ? Arrays.stream(args).skip(2).map(Integer::parseInt).toList()
+            : List.of(1, 2, 4, 8);
+
+        var random = new Random(42);
+        List<GameResult> gameResults = new ArrayList<>(results);
+        for (int i = 0; i < results; i++) {
+            String gameId = "game%06d".formatted(i);
+            String user = "user" + random.nextInt(players);
+            String opponent = "user" + random.nextInt(players);
+            gameResults.add(switch (random.nextInt(5)) {
+                case 0, 1 -> new Win(gameId, user, opponent, random.nextInt(-400, 400), random.nextInt(20) == 0);
+                case 2, 3 -> new Loss(gameId, user, opponent);
+                default   -> new Draw(gameId, user, opponent);
+            });
+        }
+
+        System.out.println("%d players, %d results".formatted(players, results));
+        for (int count : counts) {
+            long best = Long.MAX_VALUE;
+            var emitted = new LongAdder();
+            for (int run = 0; run < 8; run++) {
+                emitted.reset();
+                long start = System.nanoTime();
+                try (var shards = new ResultShards(count, _ -> emitted.increment())) {
+                    for (GameResult result : gameResults) shards.accept(result);
+                }
+                long elapsed = System.nanoTime() - start;
+                if (run >= 3) best = Math.min(best, elapsed); // first runs are warmup
+            }
+            System.out.println("%2d shards %8.1f ns/result  (%d events)".formatted(count, (double) best / results, emitted.sum()));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package tb.source;
+
+import module java.base;
+
+// The readers of the Lichess game streams of a Tour.
+//
+// Each stream is consumed on its own virtual thread, forked in a scope owned by the Tour loop thread,
+// so no reader outlives the Tour - closing the readers closes the remaining streams and waits for their readers.
+// A stream closed through close(stream) is expected to end, with or without an exception.
+// Any other ending means the stream was lost (network trouble, server restart...) and is handed to onLost.
+final class StreamReaders implements AutoCloseable {
+
+    private final StructuredTaskScope<Object, Void> scope;
+    // Guarded by this - a stream is closing only while its reader has yet to notice that it ended
+    private final Set<Stream<?>> open = new HashSet<>();
+    private final Set<Stream<?>> closing = new HashSet<>();
+
+    StreamReaders(String name) {
+        scope = StructuredTaskScope.open(StructuredTaskScope.Joiner.awaitAll(),
+                cf -> cf.withThreadFactory(Thread.ofVirtual().name(name + "-", 0).factory()).withName(name));
+    }
+
+    // Called by the owner (Tour loop) thread
+    <T> void read(String name, Stream<T> stream, Consumer<? super T> consumer, Runnable onLost) {
+        synchronized (this) {
+            open.add(stream);
+        }
+        scope.fork(() -> {
+            Thread.currentThread().setName(name);
+            String failure = "end of stream";
+            boolean closed;
+            try {
+                stream.forEach(consumer);
+            } catch (UncheckedIOException ex) {
+                failure = String.valueOf(ex.getMessage());
+            } finally {
+                synchronized (this) {
+                    open.remove(stream);
+                    closed = closing.remove(stream);
+                }
+            }
+            if (! closed) {
+                System.err.println("Lost stream %s - %s".formatted(name, failure));
+                stream.close();
+                onLost.run();
+            }
+            return null;
+        });
+    }
+
+    void close(Stream<?> stream) {
+        synchronized (this) {
+            if (open.contains(stream)) closing.add(stream);
+        }
+        stream.close();
+    }
+
+    // Called by the owner (Tour loop) thread, when the Tour ends
+    @Override
+    public void close() {
+        List<Stream<?>> remaining;
+        synchronized (this) {
+            remaining = List.copyOf(open);
+        }
+        remaining.forEach(this::close);
+
+        // The loop typically ends because it was interrupted,
+        // but the readers are done as soon as their streams are closed - so wait for them anyway.
+        boolean interrupted = Thread.interrupted();
+        try {
+            scope.join();
+        } catch (InterruptedException _) {
+            interrupted = true;
+        } finally {
+            scope.close();
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+}
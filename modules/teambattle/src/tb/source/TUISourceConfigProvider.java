@@ -7,6 +7,9 @@ import module chariot;
 
 import chariot.model.Arena;
 
+import tb.lichess.LichessCache;
+import tb.lichess.RequestScheduler;
+
 public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
 
     @Override
@@ -24,7 +27,8 @@ public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
             return Optional.empty();
         }
 
-        var teamResult = client.teams().byTeamId(teamId);
+        var teamResult = LichessCache.shared().get("teams/byTeamId", teamId,
+                () -> RequestScheduler.shared().interactive("teams/byTeamId", () -> client.teams().byTeamId(teamId)));
         if (! (teamResult instanceof Entry(Team team))) {
             ui.crudeMessage(teamResult + "\nFailed to find team, will be more helpful in future...");
             return Optional.empty();
@@ -49,7 +53,8 @@ public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
 
         Client client = Client.load(prefs.node("chariot"));
 
-        var teamResult = client.teams().byTeamId(teamId);
+        var teamResult = LichessCache.shared().get("teams/byTeamId", teamId,
+                () -> RequestScheduler.shared().interactive("teams/byTeamId", () -> client.teams().byTeamId(teamId)));
         if (! (teamResult instanceof Entry(Team team))) {
             ui.crudeMessage(teamResult + "\nFailed to find team, will be more helpful in future...");
             return Optional.empty();
@@ -59,7 +64,8 @@ public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
             return Optional.empty();
         }
 
-        return Optional.of(new TeamBattleSourceProvider.TeamBattleSourceConfig(team, arena, client));
+        return Optional.of(new TeamBattleSourceProvider.TeamBattleSourceConfig(team, arena, client,
+                    Execution.of("tour", Execution.Hint.io, prefs)));
     }
 
     @Override
@@ -71,7 +77,8 @@ public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
 
         Client client = Client.load(prefs.node("chariot"));
 
-        var teamResult = client.teams().byTeamId(teamId);
+        var teamResult = LichessCache.shared().get("teams/byTeamId", teamId,
+                () -> RequestScheduler.shared().interactive("teams/byTeamId", () -> client.teams().byTeamId(teamId)));
         if (! (teamResult instanceof Entry(Team team))) {
             ui.crudeMessage(teamResult + "\nFailed to find team! (non-interactive)");
             return Optional.empty();
@@ -81,7 +88,8 @@ public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
             return Optional.empty();
         }
 
-        return Optional.of(new TeamBattleSourceProvider.TeamBattleSourceConfig(team, arena, client));
+        return Optional.of(new TeamBattleSourceProvider.TeamBattleSourceConfig(team, arena, client,
+                    Execution.of("tour", Execution.Hint.io, prefs)));
     }
 
     @Override
@@ -93,7 +101,7 @@ public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
 
     private static Arena lookupArenaByTeamIdOrArenaId(String teamId, Optional<String> arenaId, Client client, UI ui, boolean interactive) {
 
-        var arenaLightResult = client.teams().arenaByTeamId(teamId);
+        var arenaLightResult = RequestScheduler.shared().interactive("teams/arenaByTeamId", () -> client.teams().arenaByTeamId(teamId));
         if (! (arenaLightResult instanceof Entries(Stream<ArenaLight> stream))) {
             ui.crudeMessage(arenaLightResult + "\nFailed to find tournament");
             if (interactive) {
@@ -112,7 +120,8 @@ public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
         if (size == 0) {
 
             if (arenaId.isPresent()) {
-                if (client.tournaments().arenaById(arenaId.get()) instanceof Entry(Arena arena)) {
+                if (LichessCache.shared().get("tournaments/arenaById", arenaId.get(),
+                        () -> RequestScheduler.shared().interactive("tournaments/arenaById", () -> client.tournaments().arenaById(arenaId.get()))) instanceof Entry(Arena arena)) {
                     if (arena.tourInfo().status() != TourInfo.Status.finished) {
                         return arena;
                     }
@@ -129,7 +138,8 @@ public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
         if (size > 1) {
 
             if (arenaId.isPresent()) {
-                if (client.tournaments().arenaById(arenaId.get()) instanceof Entry(Arena arena)) {
+                if (LichessCache.shared().get("tournaments/arenaById", arenaId.get(),
+                        () -> RequestScheduler.shared().interactive("tournaments/arenaById", () -> client.tournaments().arenaById(arenaId.get()))) instanceof Entry(Arena arena)) {
                     if (arena.tourInfo().status() != TourInfo.Status.finished) {
                         return arena;
                     }
@@ -143,7 +153,8 @@ public record TUISourceConfigProvider(UI ui) implements ConfigProvider {
             return null;
         }
 
-        var arenaResult = client.tournaments().arenaById(nonFinishedTeamBattles.getFirst().id());
+        var arenaResult = LichessCache.shared().get("tournaments/arenaById", nonFinishedTeamBattles.getFirst().id(),
+                () -> RequestScheduler.shared().interactive("tournaments/arenaById", () -> client.tournaments().arenaById(nonFinishedTeamBattles.getFirst().id())));
         if (! (arenaResult instanceof Entry(Arena arena))) {
             ui.crudeMessage(arenaResult + "\nFailed to lookup tournament by id");
             if (interactive) {
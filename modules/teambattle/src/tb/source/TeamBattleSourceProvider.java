@@ -26,19 +26,24 @@ public class TeamBattleSourceProvider implements SourceProvider {
         return new TUISourceConfigProvider(ui);
     }
 
-    public record TeamBattleSourceConfig(Team team, Arena arena, Client client) implements Config {
+    public record TeamBattleSourceConfig(Team team, Arena arena, Client client, Execution io) implements Config {
+        public TeamBattleSourceConfig(Team team, Arena arena, Client client) {
+            this(team, arena, client, Execution.of("tour", Execution.Hint.io));
+        }
+
         @Override
         public void store(Preferences prefs) {
             prefs.put("teamId", team.id());
             prefs.put("tourId", arena.id());
             Preferences chariotPrefs = prefs.node("chariot");
             client.store(chariotPrefs);
+            io.store(prefs);
         }
     }
 
     @Override
     public Source of(Config config) {
-        if (! (config instanceof TeamBattleSourceConfig(Team team, Arena arena, Client client))) {
+        if (! (config instanceof TeamBattleSourceConfig(Team team, Arena arena, Client client, Execution io))) {
             System.out.println("Unknown config! " + config);
             return null;
         }
@@ -51,7 +56,7 @@ public class TeamBattleSourceProvider implements SourceProvider {
                 https://lichess.org/tournament/%s
                 """.formatted(team.name(), team.id(), arena.tourInfo().name(), arena.id()));
 
-        return new Tour(team, arena, client);
+        return TourEngine.shared().tour(team, arena, client, io);
     }
 
 }
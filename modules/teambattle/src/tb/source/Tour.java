@@ -8,23 +8,49 @@ import module chariot;
 
 import chariot.model.Arena;
 import chariot.model.Team;
-import chariot.model.User;
 import tb.internal.*;
 import tb.internal.InternalEvent.*;
 
 public class Tour implements Source {
 
-    boolean done = false;
+    volatile boolean done = false;
     State currentState;
 
     final List<Queue<TeamBattleEvent>> externalQueues = new CopyOnWriteArrayList<>();
     final AtomicInteger gameStreamCount = new AtomicInteger();
     final int maxNumberOfGamesPerStream;
     final ObjectOutputStream oos;
-    final Map<String, User> cache = new ConcurrentHashMap<>();
+    // Display names by user id, seeded from the arena results and prefetched in bulk,
+    // so announcing an event doesn't have to wait for Lichess
+    final NameCache names = NameCache.shared();
+    final Map<String, CompletableFuture<Void>> nameLookups = new ConcurrentHashMap<>();
+    static final Duration nameLookupTimeout = Duration.ofSeconds(2);
+    // Participants get a dense int id when they first show up,
+    // which the member and monitor sets (IdSet) are made of
+    final UserIds userIds = new UserIds();
+    final ParticipantTracker participantTracker;
+    // Each game counts once, however many streams carried it. A Tour makes at most one result per game
+    // (for its member, or the one playing white if both are members), so the game id is the result key.
+    final SeenGames countedGames = new SeenGames();
+    final ArenaHub hub;
+    final Execution io;
 
     public Tour(Team team, Arena arena, Client client) {
+        this(team, arena, client, Execution.of("tour", Execution.Hint.io));
+    }
+
+    // io - threads for the Lichess streams and requests
+    public Tour(Team team, Arena arena, Client client, Execution io) {
+        this(team, arena, client, io, new ArenaHub(arena.id()));
+    }
+
+    // hub - shared with the Tours of other teams in the same arena, see TourEngine
+    Tour(Team team, Arena arena, Client client, Execution io, ArenaHub hub) {
+        this.io = io;
+        this.hub = hub;
+        hub.attach(this);
         currentState = new Initial(new Base(team, arena, client));
+        participantTracker = new ParticipantTracker(team.id());
         maxNumberOfGamesPerStream = switch(client) {
             case ClientAuth _ -> 1000;
             case Client _     ->  500;
@@ -65,12 +91,53 @@ public class Tour implements Source {
     public void run() {
 
         var internalEventQueue = new ArrayBlockingQueue<InternalEvent>(16184);
-        var executor = Executors.newSingleThreadScheduledExecutor();
-        executor.scheduleAtFixedRate(() -> internalEventQueue.offer(new TimeTick()), 1, 1, TimeUnit.SECONDS);
+        var executor = Executors.newSingleThreadScheduledExecutor(io.threadFactory());
+        executor.scheduleWithFixedDelay(names::save, 5, 5, TimeUnit.MINUTES);
+        var readers = new StreamReaders("tour-stream");
+        var shards = new ResultShards(ResultShards.configuredShards(),
+                value -> internalEventQueue.offer(new Message(value)));
+        hub.subscribe(this, internalEventQueue, currentState.base().client(), currentState.base().arena(), io);
 
+        try {
+            loop(internalEventQueue, executor, readers, shards);
+        } finally {
+            hub.unsubscribe(this);
+            hub.detach(this);
+            try {
+                // The shards were opened after the readers, so they are closed before them
+                shards.close();
+                // The values of the last results, which the shards emitted while closing
+                for (InternalEvent event; (event = internalEventQueue.poll()) != null; ) {
+                    switch (event) {
+                        case Message(TeamBattleEvent eventWithIds) -> publish(eventWithIds);
+                        case StreamOpened(_, var stream) -> stream.close();
+                        default -> {}
+                    }
+                }
+                readers.close();
+            } finally {
+                executor.shutdownNow();
+                names.save();
+                // Lets the events() stream end, whatever happened
+                done = true;
+            }
+        }
+    }
+
+    void loop(BlockingQueue<InternalEvent> internalEventQueue, ScheduledExecutorService executor,
+            StreamReaders readers, ResultShards shards) {
         while (! Thread.currentThread().isInterrupted()) {
             try {
-                var event = internalEventQueue.take();
+                // Sleep until the next event, or until it's time to tick.
+                // A due tick goes first, so a busy queue can't postpone it.
+                long nanosUntilTick = nanosUntilTick();
+                InternalEvent event = nanosUntilTick == 0
+                    ? new TimeTick()
+                    : internalEventQueue.poll(nanosUntilTick, TimeUnit.NANOSECONDS);
+                if (event == null) event = new TimeTick();
+
+                var jfr = new TourLoopEvent();
+                jfr.begin();
 
                 currentState = switch(event) {
 
@@ -89,6 +156,8 @@ public class Tour implements Source {
                     }
 
                     case TourEnd()            -> {
+                        // The announcements of results already in the shards go before the end
+                        shards.drain();
                         internalEventQueue.offer(new Message(new TeamBattleEvent.TourEnd()));
                         // Thread.currentThread().interrupt() ? // TODO
                         yield currentState;
@@ -97,25 +166,9 @@ public class Tour implements Source {
                     case MemberPoll memberPoll -> {
                         if (! (currentState instanceof Running running)) yield currentState;
 
-                        if (running.monitor() instanceof Large monitor) {
+                        if (running.monitor() instanceof Large(MonitorIndex index)) {
 
-                            Set<String> existingMembersAndMembersWithSuccessfullyAddedGames = new HashSet<>(monitor.currentlyMonitoredMemberIds());
-
-                            List<StreamMeta> nonExpiredMetas = monitor.metas().stream()
-                                .<StreamMeta>mapMulti( (meta, mapper) -> {
-                                    if (meta.gameIdStatus().size() == maxNumberOfGamesPerStream
-                                        && meta.gameIdStatus().values().stream().allMatch(Boolean::booleanValue)) {
-                                        meta.byGameIds().close();
-                                    } else {
-                                        mapper.accept(meta);
-                                    }
-                                })
-                                .toList();
-
-                            int remainingRoom = switch(nonExpiredMetas) {
-                                case List<StreamMeta> list when list.isEmpty() -> 0;
-                                case List<StreamMeta> list -> maxNumberOfGamesPerStream - list.getLast().gameIdStatus().size();
-                            };
+                            int remainingRoom = index.room();
 
                             List<PlayingMember> membersWithNewlyStartedGamesAsList = memberPoll.playingMembers().stream().toList();
 
@@ -124,27 +177,17 @@ public class Tour implements Source {
                                 .toList();
 
                             if (! membersToFillRemaining.isEmpty()) {
-                                StreamMeta metaWithRemaining = nonExpiredMetas.getLast();
+                                String streamWithRemaining = index.latestStreamId();
                                 Set<String> gameIds = membersToFillRemaining.stream()
                                     .map(PlayingMember::gameId)
                                     .collect(Collectors.toSet());
-                                switch (currentState.base().client().games().addGameIdsToStream(metaWithRemaining.streamId(), gameIds)) {
-                                    case Fail(int status, var err) -> System.err.println("""
-                                            Failed to add %d games to (already holding %d) stream %s
-                                            %d - %s
-                                            Hoping for better luck in the future.""".formatted(
-                                                gameIds.size(), metaWithRemaining.gameIdStatus().size(), metaWithRemaining.streamId(),
-                                                status, err));
-                                    default -> {
-                                        existingMembersAndMembersWithSuccessfullyAddedGames.addAll(
-                                                membersToFillRemaining.stream()
-                                                .map(PlayingMember::userId)
-                                                .collect(Collectors.toSet()));
-                                        for (String gameId : gameIds) {
-                                            metaWithRemaining.gameIdStatus().put(gameId, false);
-                                        }
-                                    }
-                                }
+                                // Counted as added right away, so the next poll doesn't add them again
+                                // while the request is underway - and taken back if it fails
+                                int alreadyHolding = index.latestStreamGames();
+                                membersToFillRemaining.forEach(pm -> index.monitor(userIds.intern(pm.userId())));
+                                index.addToLatestStream(gameIds);
+                                addGames(streamWithRemaining, gameIds, membersToFillRemaining, alreadyHolding,
+                                        running.base().client(), internalEventQueue);
                             }
 
                             List<List<PlayingMember>> membersToCreateNewBatchesFor = membersWithNewlyStartedGamesAsList.stream()
@@ -152,50 +195,15 @@ public class Tour implements Source {
                                 .gather(Gatherers.windowFixed(maxNumberOfGamesPerStream))
                                 .toList();
 
-
-                            List<StreamMeta> newMetas = membersToCreateNewBatchesFor.stream().map(batch -> {
+                            for (List<PlayingMember> batch : membersToCreateNewBatchesFor) {
                                 String streamId = "stream-games-by-ids-%03d".formatted(gameStreamCount.incrementAndGet());
                                 Set<String> gameIds = batch.stream().map(PlayingMember::gameId).collect(Collectors.toSet());
 
-                                Stream<GameMeta> byGameIds = switch (currentState.base().client().games().gameInfosByGameIds(streamId, gameIds)) {
-                                    case Entries(var stream) -> {
-                                        existingMembersAndMembersWithSuccessfullyAddedGames.addAll(
-                                                batch.stream().map(PlayingMember::userId).collect(Collectors.toSet()));
-                                        yield stream;
-                                    }
-                                    case Fail(int status, var err) -> {
-                                        System.err.println("""
-                                                Failed to open stream %s for %d game ids.
-                                                %d - %s
-                                                """.formatted(streamId, gameIds.size(), status, err));
-                                        yield Stream.of();
-                                    }
-                                };
-
-                                Thread.ofPlatform().name("large-monitor-%s".formatted(streamId)).start(() -> {
-                                    try {
-                                        byGameIds
-                                            .map(this::resultOfMember)
-                                            .filter(Optional::isPresent)
-                                            .map(Optional::get)
-                                            .forEach(internalEventQueue::offer);
-                                    } catch (UncheckedIOException unchecked) {
-                                        // Stream.forEach(...)
-                                        // We are expecting to be closed final game result of his stream has been reported.
-                                        // Some verification that the unchecked was caused by that should be added,
-                                        // ie if (expectedClose) { silently exit } else { retry stream - the close was unexpected! }
-                                    }});
-
-                                Map<String, Boolean> gameIdStatus = gameIds.stream()
-                                    .collect(Collectors.toMap(Function.identity(),  _ -> Boolean.FALSE));
-
-                                StreamMeta meta = new StreamMeta(byGameIds, gameIdStatus, streamId);
-                                return meta;
-                            }).toList();
-
-                            running = running.withMonitor(new Large(
-                                        Stream.concat(nonExpiredMetas.stream(), newMetas.stream()).toList(),
-                                        existingMembersAndMembersWithSuccessfullyAddedGames));
+                                batch.forEach(pm -> index.monitor(userIds.intern(pm.userId())));
+                                // The stream is read when it has been opened, see StreamOpened
+                                index.addStream(Stream.of(), streamId, gameIds);
+                                openByGameIds(streamId, gameIds, 0, running.base().client(), internalEventQueue);
+                            }
                         }
 
 
@@ -204,12 +212,12 @@ public class Tour implements Source {
                                 .sorted(Comparator.comparing(PlayingMember::userId))
                                 .forEach(pm -> System.out.println("https://lichess.org/%s started by %s".formatted(pm.gameId(), pm.userId())));
 
-                            if (running.monitor() instanceof Large(_, var monitored)) {
+                            if (running.monitor() instanceof Large(var index)) {
+                                IdSet monitored = index.monitored();
                                 System.out.println("Members with ongoing games:\n%s".formatted(
-                                            monitored.stream().sorted().toList()));
+                                            userIds.userIds(monitored).sorted().toList()));
                                 System.out.println("Members without games:\n%s".formatted(
-                                            currentMembers().members().stream()
-                                                .filter(Predicate.not(monitored::contains))
+                                            userIds.userIds(currentMembers().members().minus(monitored))
                                                 .sorted().toList()));
                             }
                         }
@@ -218,35 +226,29 @@ public class Tour implements Source {
                     }
 
                     case Participants participants -> {
-                        Set<String> members = participants.memberIds();
-                        Set<String> allParticipants = participants.allParticipantIds();
+                        // Only the participants which are new or changed since the previous poll
+                        Set<String> changedIds = participants.allParticipantIds();
+                        IdSet members = userIds.intern(participants.memberIds());
+                        IdSet everyone = userIds.intern(changedIds);
+                        IdSet withdrawing = IdSet.of(participants.allParticipants().stream()
+                                .filter(ParticipantStatus::withdraw)
+                                .mapToInt(p -> userIds.idOf(p.userId())));
+                        IdSet returning = everyone.minus(withdrawing);
+
+                        participants.allParticipants().forEach(p -> names.put(p.userId(), p.name()));
+                        prefetchNames(changedIds);
 
                         if (! (currentState instanceof WithData state)) yield currentState;
 
+                        Members previous = state.data().members();
+                        var mergedMembers = previous.members().union(members);
+                        var mergedAllParticipants = previous.everyone().union(everyone);
+                        var mergedWithdrawn = previous.withdrawn().minus(returning).union(withdrawing);
 
-                        var mergedMembers = switch(state.data().members().members().equals(members)) {
-                            case true -> members;
-                            case false -> {
-                                var updatedMembers = new HashSet<>(state.data().members().members());
-                                updatedMembers.addAll(members);
-                                yield Collections.unmodifiableSet(updatedMembers);
-                            }
-                        };
-
-                        var mergedAllParticipants = switch(state.data().members().everyone().equals(allParticipants)) {
-                            case true -> allParticipants;
-                            case false -> {
-                                var updatedParticipants = new HashSet<>(state.data().members().everyone());
-                                updatedParticipants.addAll(allParticipants);
-                                yield Collections.unmodifiableSet(updatedParticipants);
-                            }
-                        };
-
-                        WithData nextState = state.withMembers(new Members.Some(mergedMembers, mergedAllParticipants));
+                        WithData nextState = state.withMembers(new Members.Some(mergedMembers, mergedAllParticipants, mergedWithdrawn));
 
-                        List<String> newMembers = switch (state.data().members()) {
-                            case Members.Some(var previousMembers, _) -> members.stream()
-                                .filter(Predicate.not(previousMembers::contains))
+                        List<String> newMembers = switch (previous) {
+                            case Members.Some(var previousMembers, _, _) -> userIds.userIds(members.minus(previousMembers))
                                 .sorted()
                                 .toList();
                             default -> List.of();
@@ -256,70 +258,43 @@ public class Tour implements Source {
                         if (! newMembers.isEmpty()) {
                             // Don't show new members as "recently" joined,
                             // if we have just started the announce for this team battle.
-                            if (state.data().members() instanceof Members.Some) {
+                            if (previous instanceof Members.Some) {
                                 internalEventQueue.offer(new Message(new TeamBattleEvent.Join(newMembers)));
                             }
                         }
 
+                        IdSet activeMembers = mergedMembers.minus(mergedWithdrawn);
+
                         yield switch(nextState) {
                             case Running running -> {
                                 ResultsMonitor updatedMonitor = switch(running.monitor()) {
-                                    case Small(Stream<GameMeta> oldStream, Set<String> oldUsers) -> {
-                                        if (oldUsers.equals(allParticipants)) yield running.monitor();
+                                    case Small(Stream<GameMeta> oldStream, IdSet oldUsers, _) -> {
+                                        if (oldUsers.equals(mergedAllParticipants)) yield running.monitor();
 
                                         // Participant update, close the now outdated stream
-                                        oldStream.close();
-
-                                        var updatedAllParticipants = Set.copyOf(allParticipants);
-                                        if (updatedAllParticipants.size() <= 300) {
-                                            Stream<GameMeta> newStream = switch(running.base().client().games().gameInfosByUserIds(updatedAllParticipants)) {
-                                                case Entries(var stream) -> stream;
-                                                case Fail(int status, var err) -> {
-                                                    System.err.println("""
-                                                            Failed to open game stream of %d users...
-                                                            %d - %s
-                                                            Hoping for better luck in a minute.""".formatted(updatedAllParticipants.size(), status, err));
-                                                    yield Stream.of();
-                                                }
-                                            };
-
-                                            Thread.ofPlatform().name("small-monitor-" + updatedAllParticipants.size()).start(() -> {
-                                                try {
-                                                    newStream
-                                                        .map(this::resultOfMember)
-                                                        .filter(Optional::isPresent)
-                                                        .map(Optional::get)
-                                                        .forEach(internalEventQueue::offer);
-                                                } catch (UncheckedIOException unchecked) {
-                                                    // Stream.forEach(...)
-                                                    // We are expecting to be closed when new members join.
-                                                    // Some verification that the unchecked was caused by that should be added,
-                                                    // ie if (expectedClose) { silently exit } else { retry stream - the close was unexpected! }
-                                                }});
-
-                                            yield new Small(newStream, updatedAllParticipants);
+                                        readers.close(oldStream);
 
+                                        if (mergedAllParticipants.size() <= 300) {
+                                            yield openSmall(mergedAllParticipants, 0, internalEventQueue);
                                         } else {
                                             // We just now grew from Small to Large,
                                             // switch mode to start performing MemberPoll
+                                            hub.releaseSmall(this);
 
-                                            Set<String> membersToPoll = participants.members().stream()
-                                                .filter(Predicate.not(ParticipantStatus::withdraw))
-                                                .map(ParticipantStatus::userId)
+                                            Set<String> membersToPoll = userIds.userIds(activeMembers)
                                                 .collect(Collectors.toSet());
 
                                             initiateMemberPoll(membersToPoll, internalEventQueue, running.base().client());
 
-                                            yield new Large(List.of(), Set.of());
+                                            yield new Large(new MonitorIndex(maxNumberOfGamesPerStream, readers));
                                         }
                                     }
 
-                                    case Large(_, Set<String> currentlyMonitoredMemberIds) ->  {
+                                    case Large(MonitorIndex index) ->  {
 
-                                        Set<String> membersToPoll = participants.members().stream()
-                                            .filter(Predicate.not(ParticipantStatus::withdraw))
-                                            .filter(participant -> ! currentlyMonitoredMemberIds.contains(participant.userId()))
-                                            .map(ParticipantStatus::userId)
+                                        Set<String> membersToPoll = activeMembers.stream()
+                                            .filter(id -> ! index.isMonitored(id))
+                                            .mapToObj(userIds::userId)
                                             .collect(Collectors.toSet());
 
                                         initiateMemberPoll(membersToPoll, internalEventQueue, running.base().client());
@@ -337,6 +312,7 @@ public class Tour implements Source {
 
                     case GameResult result -> {
                         if (! (currentState instanceof Running running)) yield currentState;
+                        if (! countedGames.add(result.gameId())) yield currentState;
 
                         var accumulatorsAndValues = runAccumulators(running.resultAccumulators(), result);
 
@@ -350,27 +326,87 @@ public class Tour implements Source {
 
                         var updatedAccumulators = List.copyOf(accumulatorsAndValues.accumulators());
 
+                        // The per-user accumulators
+                        shards.accept(result);
+
                         // A result just came in...
                         // If we have a Large monitor, it means that a "currently playing" user should be removed,
                         // so they will be probed for new games!
-                        if (running.monitor() instanceof Large(List<StreamMeta> metas, Set<String> currentlyMonitoredMemberIds)) {
+                        if (running.monitor() instanceof Large(MonitorIndex index)) {
+                            index.release(userIds.idOf(result.userId()));
+                            index.finished(result.gameId());
+                        }
+
+                        yield running.withResultAccumulators(updatedAccumulators);
+                    }
 
-                            Set<String> remainingUserIds = currentlyMonitoredMemberIds.stream()
-                                .filter(id -> ! id.equals(result.userId()))
-                                .collect(Collectors.toSet());
+                    case StreamLost(String streamId, int attempt) -> {
+                        Duration delay = reconnectDelay(attempt);
+                        executor.schedule(() -> internalEventQueue.offer(new Reconnect(streamId, attempt)),
+                                delay.toMillis(), TimeUnit.MILLISECONDS);
+                        yield currentState;
+                    }
+
+                    case Reconnect(String streamId, int attempt) -> {
+                        if (! (currentState instanceof Running running)) yield currentState;
 
-                            // Mutate gameIdStatus map...
-                            for (StreamMeta streamMeta : metas) {
-                                if (streamMeta.gameIdStatus().containsKey(result.gameId())) {
-                                    streamMeta.gameIdStatus().put(result.gameId(), true);
+                        yield switch(running.monitor()) {
+                            // Reopening the stream of the users replays their ongoing and recently finished games
+                            case Small small when small.streamId().equals(streamId) ->
+                                running.withMonitor(openSmall(small.userIds(), attempt, internalEventQueue));
+
+                            case Large(MonitorIndex index) when index.hasStream(streamId) -> {
+                                // Reopening the stream with the games which haven't been reported as finished yet,
+                                // starts with their current status - so results which came in while disconnected are caught up on
+                                Set<String> gameIds = index.openGameIds(streamId);
+                                if (gameIds.isEmpty()) {
+                                    index.retire(streamId);
+                                    yield running;
                                 }
+                                openByGameIds(streamId, gameIds, attempt, running.base().client(), internalEventQueue);
+                                yield running;
                             }
 
-                            running = running.withMonitor(new Large(metas, remainingUserIds));
+                            // Replaced or expired while waiting
+                            default -> running;
+                        };
+                    }
+
+                    case StreamOpened(String streamId, Stream<GameMeta> stream) -> {
+                        if (! (currentState instanceof Running running)) {
+                            stream.close();
+                            yield currentState;
                         }
 
+                        yield switch(running.monitor()) {
+                            case Small small when small.streamId().equals(streamId) -> {
+                                readSmall(streamId, stream, readers, internalEventQueue);
+                                yield running.withMonitor(new Small(stream, small.userIds(), streamId));
+                            }
 
-                        yield running.withResultAccumulators(updatedAccumulators);
+                            case Large(MonitorIndex index) when index.hasStream(streamId) -> {
+                                // Closed by the index when the final game result of the stream has been reported
+                                index.reopened(streamId, stream);
+                                readLarge(streamId, stream, readers, internalEventQueue);
+                                yield running;
+                            }
+
+                            // Replaced or expired while opening
+                            default -> {
+                                stream.close();
+                                yield running;
+                            }
+                        };
+                    }
+
+                    case GamesNotAdded(_, Set<String> gameIds, Set<String> userIdsOfGames) -> {
+                        if (currentState instanceof Running running
+                            && running.monitor() instanceof Large(MonitorIndex index)) {
+                            // Released, so the members are probed for their games again
+                            index.notAdded(gameIds);
+                            userIdsOfGames.forEach(userId -> index.release(userIds.idOf(userId)));
+                        }
+                        yield currentState;
                     }
 
                     case Standings(List<InternalEvent.TeamPoints> standings) -> {
@@ -382,31 +418,49 @@ public class Tour implements Source {
                     }
 
                     case Message(TeamBattleEvent eventWithIds) -> {
-
-                        TeamBattleEvent eventWithNames = EventRenderer.replaceNames(eventWithIds, this::nameRenderer, this::nameRenderer);
-
-                        for (var queue : externalQueues) {
-                            queue.add(eventWithNames);
-                        }
-
-                        if (oos != null) {
-                            try {
-                                oos.writeObject(new TimedEvent(ZonedDateTime.now(), eventWithNames));
-                            } catch (Exception ex) {
-                                ex.printStackTrace();
-                            }
-                        }
+                        publish(eventWithIds);
                         yield currentState;
                     }
 
                     default -> currentState;
                 };
 
+                if (jfr.shouldCommit()) {
+                    jfr.eventType = event.getClass().getSimpleName();
+                    jfr.state = currentState.getClass().getSimpleName();
+                    jfr.queueDepth = internalEventQueue.size();
+                    jfr.commit();
+                }
+
             } catch (InterruptedException _) {
                 Thread.currentThread().interrupt();
             }
         }
-        done = true;
+    }
+
+    void publish(TeamBattleEvent eventWithIds) {
+        // The ids of the event which have no name yet are looked up together
+        Set<String> unknown = new HashSet<>();
+        Function<String, String> collectUnknown = id -> {
+            if (! names.contains(id)) unknown.add(id);
+            return id;
+        };
+        EventRenderer.replaceNames(eventWithIds, collectUnknown, collectUnknown);
+        if (! unknown.isEmpty()) awaitNames(unknown);
+
+        TeamBattleEvent eventWithNames = EventRenderer.replaceNames(eventWithIds, this::nameOf, this::nameOf);
+
+        for (var queue : externalQueues) {
+            queue.add(eventWithNames);
+        }
+
+        if (oos != null) {
+            try {
+                oos.writeObject(new TimedEvent(ZonedDateTime.now(), eventWithNames));
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        }
     }
 
     Members.Some currentMembers() {
@@ -414,18 +468,148 @@ public class Tour implements Source {
             withData.data().members() instanceof Members.Some someMembers) {
             return someMembers;
             }
-        return new Members.Some(Set.of(), Set.of());
+        return noMembers;
     }
 
-    String nameRenderer(String id) {
-        try {
-            User cachedUser = cache.computeIfAbsent(id, _ -> switch(currentState.base().client().users().byId(id)) {
-                case Entry(var user) -> user;
-                default -> null;
+    static final Members.Some noMembers = new Members.Some(IdSet.empty(), IdSet.empty(), IdSet.empty());
+
+    String nameOf(String id) {
+        return names.get(id) instanceof String name ? name : id;
+    }
+
+    // Looks up the names in one request, but doesn't hold up the loop for more than a moment.
+    // If it takes longer the ids are used, and the names are ready for next time.
+    void awaitNames(Set<String> ids) {
+        List<String> toLookUp = new ArrayList<>();
+        List<CompletableFuture<Void>> lookups = ids.stream()
+            .map(id -> nameLookups.computeIfAbsent(id, _ -> {
+                toLookUp.add(id);
+                return new CompletableFuture<>();
+            }))
+            .toList();
+
+        if (! toLookUp.isEmpty()) {
+            Client client = currentState.base().client();
+            io.submit("names-" + toLookUp.size(), () -> {
+                try {
+                    lookupNames(toLookUp, client);
+                } finally {
+                    toLookUp.forEach(id -> nameLookups.remove(id).complete(null));
+                }
             });
-            return cachedUser == null ? id : cachedUser.name();
-        } catch (Exception e) { e.printStackTrace(); }
-        return null;
+        }
+
+        try {
+            CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new))
+                .get(nameLookupTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException _) {
+            // Announced with the ids of the names which didn't make it
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Fetches the names which aren't known yet, off the loop thread
+    void prefetchNames(Set<String> ids) {
+        List<String> unknown = ids.stream()
+            .filter(Predicate.not(names::contains))
+            .sorted()
+            .toList();
+        if (unknown.isEmpty()) return;
+
+        Client client = currentState.base().client();
+        io.submit("names-" + unknown.size(), () -> lookupNames(unknown, client));
+    }
+
+    // 300 ids per request
+    void lookupNames(List<String> ids, Client client) {
+        for (List<String> batch : ids.stream().gather(Gatherers.windowFixed(300)).toList()) {
+            switch (LichessCallEvent.call("users/byIds", () -> client.users().byIds(batch))) {
+                case Entries(var stream) -> stream.forEach(user -> names.put(user.id(), user.name()));
+                case Fail(int status, var err) -> System.err.println("""
+                        Failed to look up names of %d users
+                        %d - %s""".formatted(batch.size(), status, err));
+            };
+        }
+    }
+
+    // Opens the stream of games of the users, which is read until closed - or lost and reopened.
+    // The request is made off the loop thread, and the stream is read from when StreamOpened comes back.
+    Small openSmall(IdSet users, int attempt, BlockingQueue<InternalEvent> queue) {
+        String streamId = "small-monitor-%03d".formatted(gameStreamCount.incrementAndGet());
+        Set<String> ids = userIds.userIds(users).collect(Collectors.toSet());
+        if (! hub.claimSmall(this, ids)) {
+            // The Tour of another team already streams the games of these participants
+            return new Small(Stream.of(), users, ArenaHub.sharedSmall);
+        }
+        Client client = currentState.base().client();
+        io.submit(streamId, () -> {
+            switch(LichessCallEvent.call("games/gameInfosByUserIds",
+                        () -> client.games().gameInfosByUserIds(ids))) {
+                case Entries(var stream) -> queue.offer(new StreamOpened(streamId, stream));
+                case Fail(int status, var err) -> {
+                    System.err.println("""
+                            Failed to open game stream of %d users...
+                            %d - %s
+                            Hoping for better luck in a moment.""".formatted(ids.size(), status, err));
+                    queue.offer(new StreamLost(streamId, attempt + 1));
+                }
+            }
+        });
+        return new Small(Stream.of(), users, streamId);
+    }
+
+    // (Re)opens the stream of the games, off the loop thread
+    void openByGameIds(String streamId, Set<String> gameIds, int attempt, Client client, BlockingQueue<InternalEvent> queue) {
+        io.submit(streamId, () -> {
+            switch (LichessCallEvent.call("games/gameInfosByGameIds",
+                        () -> client.games().gameInfosByGameIds(streamId, gameIds))) {
+                case Entries(var stream) -> queue.offer(new StreamOpened(streamId, stream));
+                case Fail(int status, var err) -> {
+                    System.err.println("""
+                            Failed to open stream %s for %d game ids (attempt %d)
+                            %d - %s""".formatted(streamId, gameIds.size(), attempt + 1, status, err));
+                    queue.offer(new StreamLost(streamId, attempt + 1));
+                }
+            }
+        });
+    }
+
+    // Adds the games to the already open stream, off the loop thread
+    void addGames(String streamId, Set<String> gameIds, List<PlayingMember> members, int alreadyHolding,
+            Client client, BlockingQueue<InternalEvent> queue) {
+        io.submit(streamId + "-add", () -> {
+            if (LichessCallEvent.call("games/addGameIdsToStream",
+                        () -> client.games().addGameIdsToStream(streamId, gameIds)) instanceof Fail(int status, var err)) {
+                System.err.println("""
+                        Failed to add %d games to (already holding %d) stream %s
+                        %d - %s
+                        Hoping for better luck in the future.""".formatted(
+                            gameIds.size(), alreadyHolding, streamId,
+                            status, err));
+                queue.offer(new GamesNotAdded(streamId, gameIds,
+                            members.stream().map(PlayingMember::userId).collect(Collectors.toSet())));
+            }
+        });
+    }
+
+    void readSmall(String streamId, Stream<GameMeta> byUserIds, StreamReaders readers, BlockingQueue<InternalEvent> queue) {
+        readers.read(streamId, byUserIds,
+                hub::publish,
+                () -> queue.offer(new StreamLost(streamId, 0)));
+    }
+
+    void readLarge(String streamId, Stream<GameMeta> byGameIds, StreamReaders readers, BlockingQueue<InternalEvent> queue) {
+        readers.read("large-monitor-%s".formatted(streamId), byGameIds,
+                hub::publish,
+                () -> queue.offer(new StreamLost(streamId, 0)));
+    }
+
+    // Exponential backoff from 1s up to a minute, with jitter
+    // so that streams lost at the same time don't all reconnect at the same time
+    static Duration reconnectDelay(int attempt) {
+        long maxMillis = Math.min(60_000, 1_000L << Math.min(attempt, 6));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(maxMillis / 2, maxMillis + 1));
     }
 
     Optional<GameResult> resultOfMember(GameMeta gameMeta) {
@@ -440,46 +624,35 @@ public class Tour implements Source {
         // - Game time control is same as team battle
         // - Game participants are both in the team battle
 
-        Arena arena = currentState.base().arena();
+        // Checked with values captured at the latest arena update, see ArenaMatch,
+        // and nothing is allocated until there is a result to hand out.
+        if (! currentState.base().match().test(gameMeta)) return Optional.empty();
+
         var whiteInfo = gameMeta.players().white();
         var blackInfo = gameMeta.players().black();
-
-        if (gameMeta.status().status() > Enums.Status.started.status()
-
-            && gameMeta.rated() == arena.tourInfo().rated()
-            && gameMeta.timeControl() instanceof RealTime rt
-            && rt.clock().equals(arena.tourInfo().clock())
-            && gameMeta.variant().equals(arena.tourInfo().variant())
-            && currentMembers().everyone().containsAll(Set.of(whiteInfo.userId(), blackInfo.userId()))) {
-
-            record IdColor(String id, Enums.Color color, int rating, boolean provisional) {}
-            var white = new IdColor(whiteInfo.userId(), Enums.Color.white, whiteInfo.rating(), whiteInfo.provisional());
-            var black = new IdColor(blackInfo.userId(), Enums.Color.black, blackInfo.rating(), blackInfo.provisional());
-
-            Set<String> memberSet = currentMembers().members();
-
-            if (memberSet.contains(white.id()) || memberSet.contains(black.id())) {
-                var member = memberSet.contains(white.id()) ? white : black;
-                var opponent = member.equals(white) ? black : white;
-
-                return Optional.of(switch(gameMeta.winner()) {
-                    case Some(var color) when color == member.color -> new Win(gameMeta.id(), member.id(), opponent.id(),
-                            opponent.rating() - member.rating(), whiteInfo.provisional() || blackInfo.provisional());
-                    case Some(_) -> new Loss(gameMeta.id(), member.id(), opponent.id());
-                    case Empty() -> new Draw(gameMeta.id(), member.id(), opponent.id());
-                });
-            }
-        }
-        return Optional.empty();
+        Members.Some current = currentMembers();
+        Enums.Color memberColor = ArenaMatch.memberColor(current.everyone(), current.members(),
+                userIds.idOf(whiteInfo.userId()), userIds.idOf(blackInfo.userId()));
+        if (memberColor == null) return Optional.empty();
+
+        var member = memberColor == Enums.Color.white ? whiteInfo : blackInfo;
+        var opponent = memberColor == Enums.Color.white ? blackInfo : whiteInfo;
+
+        return Optional.of(switch(gameMeta.winner()) {
+            case Some(var color) when color == memberColor -> new Win(gameMeta.id(), member.userId(), opponent.userId(),
+                    opponent.rating() - member.rating(), whiteInfo.provisional() || blackInfo.provisional());
+            case Some(_) -> new Loss(gameMeta.id(), member.userId(), opponent.userId());
+            case Empty() -> new Draw(gameMeta.id(), member.userId(), opponent.userId());
+        });
     }
 
     void initiateMemberPoll(Set<String> membersToPoll, BlockingQueue<InternalEvent> internalEventQueue, Client client) {
         if (membersToPoll.isEmpty()) {
             internalEventQueue.offer(new MemberPoll(Set.of()));
         } else {
-            Thread.ofPlatform().name("large-monitor-poll-" + membersToPoll.size()).start(() ->
-                    internalEventQueue.offer(new MemberPoll(switch(client.users()
-                                .statusByIds(membersToPoll, p -> p.withGameIds())) {
+            io.submit("large-monitor-poll-" + membersToPoll.size(), () ->
+                    internalEventQueue.offer(new MemberPoll(switch(LichessCallEvent.call("users/statusByIds",
+                                () -> client.users().statusByIds(membersToPoll, p -> p.withGameIds()))) {
                         case Entries(var stream) -> stream
                             .filter(UserStatus::online)
                             .filter(member -> member.playingGameId().isPresent())
@@ -498,46 +671,53 @@ public class Tour implements Source {
         }
     }
 
-    record Base(Team team, Arena arena, Client client) {
+    record Base(Team team, Arena arena, Client client, ArenaMatch match) {
+        Base(Team team, Arena arena, Client client) {
+            this(team, arena, client, ArenaMatch.of(arena));
+        }
+
         public Base withArena(Arena updated) {
             return new Base(team, updated, client);
         }
     }
 
     sealed interface Members {
-        default Set<String> members() {
+        default IdSet members() {
             return switch(this) {
-                case Unset() -> Set.of();
-                case Some(var members, _) -> members;
+                case Unset() -> IdSet.empty();
+                case Some(var members, _, _) -> members;
             };
         }
-        default Set<String> everyone() {
+        default IdSet everyone() {
             return switch(this) {
-                case Unset() -> Set.of();
-                case Some(_ , var everyone) -> everyone;
+                case Unset() -> IdSet.empty();
+                case Some(_ , var everyone, _) -> everyone;
+            };
+        }
+        default IdSet withdrawn() {
+            return switch(this) {
+                case Unset() -> IdSet.empty();
+                case Some(_ , _, var withdrawn) -> withdrawn;
             };
         }
         record Unset() implements Members {}
-        record Some(Set<String> members, Set<String> everyone) implements Members {}
+        // Ids from the Tour's UserIds
+        record Some(IdSet members, IdSet everyone, IdSet withdrawn) implements Members {}
     }
 
-    record Data(Base base, Members members, List<Accumulator<Void, Runnable>> tickAccumulators) {
+    record Data(Base base, Members members) {
         public Data withBase(Base updated) {
-            return new Data(updated, members, tickAccumulators);
+            return new Data(updated, members);
         }
         public Data withMembers(Members updated) {
-            return new Data(base, updated, tickAccumulators);
-        }
-        public Data withTickAccumulators(List<Accumulator<Void, Runnable>> updated) {
-            return new Data(base, members, updated);
+            return new Data(base, updated);
         }
     }
 
     sealed interface ResultsMonitor {}
-    record Small(Stream<GameMeta> byUserIds, Set<String> userIds) implements ResultsMonitor {}
-    record Large(List<StreamMeta> metas, Set<String> currentlyMonitoredMemberIds) implements ResultsMonitor {}
-
-    record StreamMeta(Stream<GameMeta> byGameIds, Map<String, Boolean> gameIdStatus, String streamId) {}
+    record Small(Stream<GameMeta> byUserIds, IdSet userIds, String streamId) implements ResultsMonitor {}
+    // The index is updated in place by the loop thread
+    record Large(MonitorIndex index) implements ResultsMonitor {}
 
     sealed interface State permits Initial, WithData {
         Base base();
@@ -566,6 +746,7 @@ public class Tour implements Source {
 
     record Initial(Base base) implements State {}
     record NotStarted(Data data) implements WithData {}
+    // The arena-wide result accumulators, the per-user ones are in the ResultShards
     record Running(Data data, ResultsMonitor monitor, List<Accumulator<InternalEvent.GameResult, TeamBattleEvent>> resultAccumulators) implements WithData {
         public Running withResultAccumulators(List<Accumulator<GameResult, TeamBattleEvent>> updated) {
             return new Running(data(), monitor(), updated);
@@ -577,6 +758,22 @@ public class Tour implements Source {
     record Ended(Data data) implements WithData {}
 
 
+    // Nanos until the loop should tick - when the tour is about to begin or end.
+    // (The arena is polled by the hub, which hands the results to the loop as events)
+    long nanosUntilTick() {
+        return switch (currentState) {
+            case Initial _ -> 0;
+            case NotStarted state -> nanosUntilPassed(state.base().arena().tourInfo().startsAt());
+            case Running state -> nanosUntilPassed(state.base().arena().tourInfo().startsAt().plus(state.base().arena().duration()));
+            case Ended _ -> Long.MAX_VALUE;
+        };
+    }
+
+    static long nanosUntilPassed(ZonedDateTime instant) {
+        // (a millisecond extra, for the "isAfter" checks)
+        return Math.max(0, Duration.between(ZonedDateTime.now(), instant).plusMillis(1).toNanos());
+    }
+
     State tickInitial(Initial initial, Queue<InternalEvent> queue) {
         Base base = initial.base();
         Arena arena = base.arena();
@@ -584,26 +781,17 @@ public class Tour implements Source {
 
             // Normal flow
             case ZonedDateTime now when now.isBefore(arena.tourInfo().startsAt())
-                -> new NotStarted(new Data(base, new Members.Some(Set.of(), Set.of()),
-                            List.of(
-                                new RepeatableAction(60,     arenaUpdate(base.client(), arena, queue)),
-                                new RepeatableAction(60, 60, members(base.client(), arena, base.team(), queue))
-                                )));
+                -> new NotStarted(new Data(base, new Members.Some(IdSet.empty(), IdSet.empty(), IdSet.empty())));
 
             // Old tournament
             case ZonedDateTime now when now.isAfter(arena.tourInfo().startsAt().plus(arena.duration()))
-                -> new Ended(new Data(base, new Members.Unset(), List.of()));
+                -> new Ended(new Data(base, new Members.Unset()));
 
             // Ongoing tournament
             case ZonedDateTime _
-                -> new Running(new Data(base, new Members.Unset(),
-                            List.of(
-                                new RepeatableAction(60, arenaUpdate(base.client(), arena, queue)),
-                                new RepeatableAction(60, 60, members(base.client(), arena, base.team(), queue)),
-                                new RepeatableAction(60*20, 60*20, standings(base.client(), arena, queue))
-                                )),
-                        new Small(Stream.of(), Set.of()),
-                        List.of(new StreakAccumulator(), new UpsetAccumulator(), new PhoenixAccumulator(), new AvengeAccumulator())
+                -> new Running(new Data(base, new Members.Unset()),
+                        new Small(Stream.of(), IdSet.empty(), ""),
+                        List.of()
                         );
         };
     }
@@ -612,30 +800,15 @@ public class Tour implements Source {
         Data data = notStarted.data();
         Arena arena = data.base().arena();
 
-        var accumulatorsAndActions = runAccumulators(data.tickAccumulators(), null);
-
-        // TODO, consider adding events which represent the action,
-        // and let the main loop handle the events,
-        // i.e trigger the action in some way
-        // Launchign virtual thread for now...
-        accumulatorsAndActions.values().forEach(Thread.ofVirtual()::start);
-
-        var updatedTickAccumulators = List.copyOf(accumulatorsAndActions.accumulators());
-
         if (! ZonedDateTime.now().isAfter(arena.tourInfo().startsAt())) {
-            return new NotStarted(data.withTickAccumulators(updatedTickAccumulators));
+            return notStarted;
         }
 
         queue.offer(new TourBegin());
 
-        updatedTickAccumulators = Stream.concat(
-                updatedTickAccumulators.stream(),
-                Stream.of( new RepeatableAction(60*20, standings(data.base().client(), arena, queue)))
-                ).toList();
-
-        return new Running(data.withTickAccumulators(updatedTickAccumulators),
-                new Small(Stream.of(), Set.of()),
-                List.of(new FirstBloodAccumulator(), new StreakAccumulator(), new UpsetAccumulator(), new PhoenixAccumulator(), new AvengeAccumulator())
+        return new Running(data,
+                new Small(Stream.of(), IdSet.empty(), ""),
+                List.of(new FirstBloodAccumulator())
                 );
     }
 
@@ -644,22 +817,12 @@ public class Tour implements Source {
         Data data = running.data();
         Arena arena = data.base().arena();
 
-        var accumulatorsAndActions = runAccumulators(data.tickAccumulators(), null);
-
-        // TODO, consider adding events which represent the action,
-        // and let the main loop handle the events,
-        // i.e trigger the action in some way
-        // Launching virtual thread for now...
-        accumulatorsAndActions.values().forEach(Thread.ofVirtual()::start);
-
         if (ZonedDateTime.now().isAfter(arena.tourInfo().startsAt().plus(arena.duration()))) {
             queue.offer(new TourEnd());
-            return new Ended(new Data(data.base(), running.data().members(), List.of()));
+            return new Ended(new Data(data.base(), running.data().members()));
         }
 
-        var updatedTickAccumulators = List.copyOf(accumulatorsAndActions.accumulators());
-
-        return new Running(data.withTickAccumulators(updatedTickAccumulators), running.monitor(), running.resultAccumulators());
+        return running;
     }
 
     State tickEnded(Ended ended, Queue<InternalEvent> queue) {
@@ -668,41 +831,6 @@ public class Tour implements Source {
     }
 
 
-    static Runnable standings(Client client, Arena arena, Queue<InternalEvent> queue) {
-        return () -> queue.offer(new Standings(client.tournaments().teamBattleResultsById(arena.id()).stream()
-                    .map(ts -> new InternalEvent.TeamPoints(arena.teamBattle()
-                            .get().teams().stream()
-                            .filter(teamInfo -> teamInfo.id().equals(ts.teamId()))
-                            .findFirst()
-                            .map(Arena.TeamInfo::name)
-                            .orElse(ts.teamId()),
-                            ts.score())
-                        )
-                    .toList()));
-    }
-
-    static Runnable arenaUpdate(Client client, Arena arena, Queue<InternalEvent> queue) {
-        return () -> client.tournaments().arenaById(arena.id()).ifPresent(updatedArena -> queue.offer(new ArenaUpdate(updatedArena)));
-    }
-
-    static final Collector<ArenaResult, ?, Set<ParticipantStatus>> resultToParticipantStatusCollector =
-        Collectors.mapping(result -> new ParticipantStatus(result.username().toLowerCase(Locale.ROOT), result.withdraw()), Collectors.toSet());
-
-    static Runnable members(Client client, Arena arena, Team team, Queue<InternalEvent> queue) {
-        return () -> {
-            switch (client.tournaments().resultsByArenaId(arena.id())) {
-                case Entries(var stream) -> queue.offer(stream
-                        .collect(Collectors.teeing(
-                                Collectors.filtering(res -> res.team() instanceof Some(var teamId) && teamId.equals(team.id()),
-                                    resultToParticipantStatusCollector),
-                                resultToParticipantStatusCollector,
-                                Participants::new)));
-                case Fail(int status, var err) -> System.err.println("Arena results lookup failed - %d %s".formatted(status, err));
-            };
-        };
-    }
-
-
     record AccumulatorsAndValues<T,V>(List<Accumulator<T, V>> accumulators, List<V> values) {}
 
     <T, V> AccumulatorsAndValues<T,V> runAccumulators(List<Accumulator<T, V>> accumulators, T value) {
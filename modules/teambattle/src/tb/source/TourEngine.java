@@ -0,0 +1,29 @@
+package tb.source;
+
+import module java.base;
+import module tba.api;
+import module chariot;
+
+import chariot.model.Arena;
+import chariot.model.Team;
+
+// Monitors several teams and arenas in one process.
+// The Tours of teams in the same arena share an ArenaHub,
+// so the load on Lichess grows with the number of arenas rather than with teams times arenas.
+// (Names are already shared by all Tours, see NameCache)
+public final class TourEngine {
+
+    private static final TourEngine shared = new TourEngine();
+
+    public static TourEngine shared() {
+        return shared;
+    }
+
+    private final Map<String, ArenaHub> hubs = new HashMap<>();
+
+    public synchronized Tour tour(Team team, Arena arena, Client client, Execution io) {
+        hubs.values().removeIf(ArenaHub::unused);
+        ArenaHub hub = hubs.computeIfAbsent(arena.id(), ArenaHub::new);
+        return new Tour(team, arena, client, io, hub);
+    }
+}
@@ -0,0 +1,154 @@
+package tb.transformer;
+
+import module java.base;
+import module tba.api;
+import module teambattle.api;
+
+import tba.api.Event;
+import teambattle.api.TeamBattleEvent.*;
+
+// Holds events back for a time window and merges the ones which say the same thing:
+// consecutive Joins become one Join, only the highest Streak of a member is kept,
+// and only the latest Standings. TourBegin and TourEnd are passed on right away,
+// together with anything held back before them.
+public final class CoalesceEvents implements Transformer {
+
+    private final Duration window;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // One window per downstream, in case the same instance is used in several pipelines
+    private final Map<Consumer<? super Event>, Window> windows = new IdentityHashMap<>();
+
+    private final class Window {
+        final List<Event> pending = new ArrayList<>();
+        // Signalled when the window is flushed, so its timer doesn't have to sleep it out
+        final Condition flushed = lock.newCondition();
+        long generation;
+        Thread timer;
+    }
+
+    public CoalesceEvents(Duration window) {
+        this.window = window;
+    }
+
+    public Duration window() {
+        return window;
+    }
+
+    // Without a downstream to hand merged events to later, there is nothing to merge with
+    @Override
+    public Event transform(Event event) {
+        return event;
+    }
+
+    @Override
+    public void transform(Event event, Consumer<? super Event> downstream) {
+        lock.lock();
+        try {
+            Window current = windows.computeIfAbsent(downstream, _ -> new Window());
+            List<Event> pending = current.pending;
+            boolean opening = pending.isEmpty();
+
+            switch (event) {
+                case TourBegin _, TourEnd _ -> {
+                    pending.add(event);
+                    flush(current, downstream);
+                    return;
+                }
+
+                case Join(var members) when ! pending.isEmpty() && pending.getLast() instanceof Join(var earlier) ->
+                    pending.set(pending.size() - 1, new Join(Stream.concat(earlier.stream(), members.stream()).distinct().toList()));
+
+                case Streak(var member, int winsInRow) -> {
+                    int index = indexOf(pending, e -> e instanceof Streak(var m, _) && m.equals(member));
+                    if (index == -1) {
+                        pending.add(event);
+                    } else if (pending.get(index) instanceof Streak(_, int earlier) && winsInRow > earlier) {
+                        pending.set(index, event);
+                    }
+                }
+
+                case Standings _ -> {
+                    int index = indexOf(pending, e -> e instanceof Standings);
+                    if (index == -1) {
+                        pending.add(event);
+                    } else {
+                        pending.set(index, event);
+                    }
+                }
+
+                default -> pending.add(event);
+            }
+
+            if (opening) {
+                long generation = current.generation;
+                current.timer = Thread.ofVirtual().name("coalesce-window").start(() -> closeWindow(current, generation, downstream));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The end of the Source - waits for the window timer to finish,
+    // so nothing reaches the downstream after this.
+    // The timer isn't interrupted, that would abort a delivery it is in the middle of.
+    @Override
+    public void flush(Consumer<? super Event> downstream) {
+        Thread timer = null;
+        lock.lock();
+        try {
+            if (windows.remove(downstream) instanceof Window current) {
+                flush(current, downstream);
+                timer = current.timer;
+                current.timer = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (timer != null) {
+            try {
+                timer.join();
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void closeWindow(Window current, long generation, Consumer<? super Event> downstream) {
+        lock.lock();
+        try {
+            long nanos = window.toNanos();
+            while (nanos > 0 && current.generation == generation) {
+                nanos = current.flushed.awaitNanos(nanos);
+            }
+            // Unless already flushed by a TourBegin/TourEnd or the end of the Source
+            if (current.generation == generation) {
+                flush(current, downstream);
+            }
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void flush(Window current, Consumer<? super Event> downstream) {
+        current.generation++;
+        current.flushed.signalAll();
+        List<Event> events = List.copyOf(current.pending);
+        current.pending.clear();
+        events.forEach(downstream);
+    }
+
+    private static int indexOf(List<Event> events, Predicate<Event> predicate) {
+        for (int i = 0; i < events.size(); i++) {
+            if (predicate.test(events.get(i))) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "CoalesceEvents[window=%s]".formatted(window);
+    }
+}
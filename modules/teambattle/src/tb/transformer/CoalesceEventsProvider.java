@@ -0,0 +1,86 @@
+package tb.transformer;
+
+import module java.base;
+
+import module tba.api;
+
+import tba.api.Event;
+import teambattle.api.TeamBattleEvent;
+
+public class CoalesceEventsProvider implements TransformerProvider {
+
+    static final Duration defaultWindow = Duration.ofSeconds(5);
+
+    @Override
+    public String name() {
+        return "teambattle.coalesce";
+    }
+
+    @Override
+    public Class<? extends Event> fromEventType() {
+        return TeamBattleEvent.class;
+    }
+
+    @Override
+    public Class<? extends Event> toEventType() {
+        return TeamBattleEvent.class;
+    }
+
+    @Override
+    public ConfigProvider configProvider(UI ui) {
+        return new ConfigProvider() {
+
+            @Override
+            public String name() {
+                return "teambattle.coalesce";
+            }
+
+            @Override
+            public Optional<Config> interactiveConfig() {
+                return parseWindow(ui.crudeQuery("Window in seconds [%d]: ".formatted(defaultWindow.toSeconds())), defaultWindow);
+            }
+
+            @Override
+            public Optional<Config> interactiveConfig(Preferences prefs) {
+                Duration fromPrefs = Duration.ofSeconds(prefs.getLong("windowSeconds", defaultWindow.toSeconds()));
+                return parseWindow(ui.crudeQuery("Window in seconds [%d]: ".formatted(fromPrefs.toSeconds())), fromPrefs);
+            }
+
+            @Override
+            public Optional<Config> noninteractiveConfig() {
+                return Optional.of(new CoalesceConfig(defaultWindow));
+            }
+
+            @Override
+            public Optional<Config> noninteractiveConfig(Preferences prefs) {
+                return Optional.of(new CoalesceConfig(Duration.ofSeconds(prefs.getLong("windowSeconds", defaultWindow.toSeconds()))));
+            }
+
+            Optional<Config> parseWindow(String answer, Duration fallback) {
+                if (answer == null || answer.isBlank()) return Optional.of(new CoalesceConfig(fallback));
+                try {
+                    return Optional.of(new CoalesceConfig(Duration.ofSeconds(Long.parseLong(answer.strip()))));
+                } catch (NumberFormatException ex) {
+                    ui.crudeMessage("Not a number of seconds - " + answer);
+                    return Optional.empty();
+                }
+            }
+        };
+    }
+
+    public record CoalesceConfig(Duration window) implements Config {
+        @Override
+        public void store(Preferences prefs) {
+            prefs.putLong("windowSeconds", window.toSeconds());
+        }
+    }
+
+    @Override
+    public Transformer of(Config config) {
+        if (! (config instanceof CoalesceConfig(Duration window))) {
+            System.out.println("Unexpected config " + config);
+            return null;
+        }
+        return new CoalesceEvents(window);
+    }
+}